@@ -0,0 +1,79 @@
+package com.fxmaxlove.xzr.rxbus.benchmark;
+
+import com.fxmaxlove.xzr.rxbus.AsyncPolicy;
+import com.fxmaxlove.xzr.rxbus.RxBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.functions.Consumer;
+
+/**
+ * Producer-side cost of an asynchronous {@code post}, to compare with {@link PostBenchmark}.
+ * <p>With {@code DROP} the producer never waits for the dispatcher, so the score is the ring buffer
+ * hand-off alone and should not depend on {@code subscribers}. With {@code BLOCK} a producer that outruns
+ * the dispatcher is held back, so the score converges on the delivery cost instead.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class AsyncPostBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int subscribers;
+
+    @Param({"SPIN", "YIELD", "PARK"})
+    public AsyncPolicy.WaitStrategy waitStrategy;
+
+    @Param({"DROP", "BLOCK"})
+    public AsyncPolicy.Overflow overflow;
+
+    private RxBus bus;
+    private CompositeDisposable disposables;
+
+    @Setup(Level.Trial)
+    public void setUp(final Blackhole blackhole) {
+        bus = new RxBus.Builder()
+                .async(AsyncPolicy.bufferSize(8192).withWaitStrategy(waitStrategy).withOverflow(overflow))
+                .build();
+        disposables = new CompositeDisposable();
+        Consumer<Object> consumer = new Consumer<Object>() {
+            @Override
+            public void accept(Object event) throws Exception {
+                blackhole.consume(event);
+            }
+        };
+        for (int i = 0; i < subscribers; i++) {
+            disposables.add(bus.ofType(Events.E0.class).subscribe(consumer));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bus.stopAsyncPost();
+        disposables.dispose();
+    }
+
+    @Benchmark
+    public void post() {
+        bus.post(Events.INSTANCES[0]);
+    }
+}
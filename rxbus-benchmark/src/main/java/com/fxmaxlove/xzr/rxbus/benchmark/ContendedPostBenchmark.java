@@ -0,0 +1,107 @@
+package com.fxmaxlove.xzr.rxbus.benchmark;
+
+import com.fxmaxlove.xzr.rxbus.RxBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.functions.Consumer;
+
+/**
+ * Multi-producer {@code post} through the serialized relay. Run with {@code -t} to change the producer count.
+ * <p>Each producer thread posts its own event type, so any slowdown against {@link PostBenchmark}
+ * comes from contention on the bus, not from the subscribers.</p>
+ * <p>The thread that wins the relay also delivers what the others queue meanwhile, so with producers that
+ * never pause a throughput run never drains the queue. Each measurement is therefore a fixed batch of
+ * {@value #BATCH} posts per thread, timed until that thread returns.</p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = ContendedPostBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = ContendedPostBenchmark.BATCH)
+@Fork(2)
+@Threads(4)
+public class ContendedPostBenchmark {
+
+    static final int BATCH = 100000;
+
+    @State(Scope.Benchmark)
+    public static class BusState {
+        @Param({"shared", "typeIndexed", "sharded"})
+        public String dispatch;
+
+        RxBus bus;
+        private CompositeDisposable disposables;
+
+        @Setup(Level.Trial)
+        public void setUp(final Blackhole blackhole) {
+            if ("typeIndexed".equals(dispatch)) {
+                bus = RxBus.typeIndexed();
+            } else if ("sharded".equals(dispatch)) {
+                bus = new RxBus.Builder().sharded(Events.MAX_TYPES).build();
+            } else {
+                bus = new RxBus();
+            }
+            disposables = new CompositeDisposable();
+            Consumer<Object> consumer = new Consumer<Object>() {
+                @Override
+                public void accept(Object event) throws Exception {
+                    blackhole.consume(event);
+                }
+            };
+            for (Class<?> type : Events.TYPES) {
+                disposables.add(bus.ofType(type).subscribe(consumer));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            disposables.dispose();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ProducerState {
+        Object event;
+        List<Object> batch;
+
+        @Setup(Level.Trial)
+        public void setUp(org.openjdk.jmh.infra.ThreadParams threadParams) {
+            event = Events.INSTANCES[threadParams.getThreadIndex() % Events.MAX_TYPES];
+            Object[] events = new Object[16];
+            Arrays.fill(events, event);
+            batch = Arrays.asList(events);
+        }
+    }
+
+    @Benchmark
+    public void post(BusState bus, ProducerState producer) {
+        bus.bus.post(producer.event);
+    }
+
+    /**
+     * 16 events per operation through {@code postAll}, one lock acquisition per 16 events.
+     */
+    @Benchmark
+    public void postAll(BusState bus, ProducerState producer) {
+        bus.bus.postAll(producer.batch);
+    }
+}
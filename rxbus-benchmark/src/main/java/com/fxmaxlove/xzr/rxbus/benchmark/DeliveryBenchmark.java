@@ -0,0 +1,101 @@
+package com.fxmaxlove.xzr.rxbus.benchmark;
+
+import com.fxmaxlove.xzr.rxbus.index.SubscriberInfo;
+import com.fxmaxlove.xzr.rxbus.index.SubscriberMethodInfo;
+import com.fxmaxlove.xzr.rxbus.invoke.Invokers;
+import com.fxmaxlove.xzr.rxbus.invoke.MethodHandleInvokerFactory;
+import com.fxmaxlove.xzr.rxbus.invoke.ReflectionInvokerFactory;
+import com.fxmaxlove.xzr.rxbus.invoke.SubscriberInvoker;
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of calling one {@code @RxSubscribe} method, by invoker: plain reflection,
+ * {@code MethodHandle}, or the switch generated by the compile-time index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DeliveryBenchmark {
+
+    @Param({"reflection", "methodHandle", "index"})
+    public String invoker;
+
+    private SubscriberInvoker subscriberInvoker;
+    private Target target;
+    private Object event;
+
+    public static class Target {
+        Blackhole blackhole;
+
+        public void onEvent(Events.E0 event) {
+            blackhole.consume(event);
+        }
+    }
+
+    /**
+     * What the annotation processor generates for {@link Target}.
+     */
+    static final class TargetIndex implements SubscriberInfo {
+        private static final SubscriberMethodInfo[] METHODS = {
+                new SubscriberMethodInfo("onEvent", Events.E0.class, EventThread.TRAMPOLINE, false),
+        };
+
+        @Override
+        public SubscriberMethodInfo[] getSubscriberMethods() {
+            return METHODS;
+        }
+
+        @Override
+        public void invoke(Object subscriber, int index, Object event) throws Exception {
+            Target target = (Target) subscriber;
+            switch (index) {
+                case 0:
+                    target.onEvent((Events.E0) event);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown subscriber method index " + index);
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) throws Exception {
+        target = new Target();
+        target.blackhole = blackhole;
+        event = Events.INSTANCES[0];
+        Method method = Target.class.getDeclaredMethod("onEvent", Events.E0.class);
+        method.setAccessible(true);
+        if ("reflection".equals(invoker)) {
+            subscriberInvoker = new ReflectionInvokerFactory().create(method);
+        } else if ("methodHandle".equals(invoker)) {
+            subscriberInvoker = new MethodHandleInvokerFactory().create(method);
+        } else {
+            subscriberInvoker = Invokers.forIndex(new TargetIndex(), 0);
+        }
+    }
+
+    @Benchmark
+    public void invoke() throws Exception {
+        subscriberInvoker.invoke(target, event);
+    }
+}
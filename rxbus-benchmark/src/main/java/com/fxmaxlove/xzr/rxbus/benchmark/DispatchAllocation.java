@@ -0,0 +1,130 @@
+package com.fxmaxlove.xzr.rxbus.benchmark;
+
+import com.fxmaxlove.xzr.rxbus.EventPool;
+import com.fxmaxlove.xzr.rxbus.IntChannel;
+import com.fxmaxlove.xzr.rxbus.PooledEvent;
+import com.fxmaxlove.xzr.rxbus.RxBus;
+import com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe;
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Bytes allocated by the posting thread per {@code post} once subscribers are registered, counted with
+ * {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes}. Exits with status 1 if any
+ * steady-state path allocates. The {@code pooled} row also counts the producer: every post acquires
+ * its event from an {@link EventPool} instead of creating one.
+ * <pre>
+ * java -cp rxbus-benchmark-jmh.jar com.fxmaxlove.xzr.rxbus.benchmark.DispatchAllocation [posts]
+ * </pre>
+ * Cross-thread delivery is not part of the check: waking the receiving thread allocates inside the
+ * {@code Scheduler} (about one task per burst), which depends on the scheduler implementation.
+ */
+public final class DispatchAllocation {
+
+    private static final int WARMUP_POSTS = 200000;
+    private static final int DEFAULT_POSTS = 1000000;
+
+    private DispatchAllocation() {
+    }
+
+    public static final class Quote extends PooledEvent {
+        static final EventPool.Factory<Quote> FACTORY = new EventPool.Factory<Quote>() {
+            @Override
+            public Quote create() {
+                return new Quote();
+            }
+        };
+
+        long price;
+
+        @Override
+        protected void reset() {
+            price = 0;
+        }
+    }
+
+    public static final class Subscriber {
+        long received;
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        public void onEvent(Events.E0 event) {
+            received++;
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        public void onEvent(Events.E1 event) {
+            received++;
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        public void onQuote(Quote quote) {
+            received += quote.price;
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE, channel = "ticks")
+        public void onTick(int tick) {
+            received += tick;
+        }
+    }
+
+    public static void main(String[] args) {
+        int posts = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_POSTS;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("thread allocation counting is not supported on this JVM");
+            return;
+        }
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        boolean allocated = false;
+        System.out.printf("%14s %14s %14s%n", "dispatch", "subscribers", "bytes/post");
+        for (String dispatch : new String[]{"shared", "typeIndexed", "sharded", "channel", "pooled"}) {
+            for (int subscribers : new int[]{1, 10}) {
+                RxBus bus = bus(dispatch);
+                for (int i = 0; i < subscribers; i++) {
+                    bus.register(new Subscriber());
+                }
+                post(bus, dispatch, WARMUP_POSTS);
+                long before = counter.getThreadAllocatedBytes(Thread.currentThread().getId());
+                post(bus, dispatch, posts);
+                long bytes = counter.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+                System.out.printf("%14s %14d %14.3f%n", dispatch, subscribers, (double) bytes / posts);
+                // a few bytes can come from the JIT or the counter itself, not from the posts
+                allocated |= bytes > posts / 100;
+            }
+        }
+        if (allocated) {
+            System.out.println("steady-state post allocated");
+            System.exit(1);
+        }
+    }
+
+    private static RxBus bus(String dispatch) {
+        if ("typeIndexed".equals(dispatch)) {
+            return RxBus.typeIndexed();
+        }
+        if ("sharded".equals(dispatch)) {
+            return new RxBus.Builder().sharded(4).build();
+        }
+        return new RxBus();
+    }
+
+    private static void post(RxBus bus, String dispatch, int count) {
+        IntChannel ticks = bus.intChannel("ticks");
+        EventPool<Quote> quotes = bus.pool(Quote.class, Quote.FACTORY);
+        boolean channel = "channel".equals(dispatch);
+        boolean pooled = "pooled".equals(dispatch);
+        for (int i = 0; i < count; i++) {
+            if (channel) {
+                ticks.post(i);
+            } else if (pooled) {
+                Quote quote = quotes.acquire();
+                quote.price = i;
+                bus.post(quote);
+            } else {
+                bus.post(Events.INSTANCES[i & 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.fxmaxlove.xzr.rxbus.benchmark;
+
+/**
+ * Distinct event classes, so that type filtering and type-indexed dispatch have real work to do.
+ */
+final class Events {
+
+    static final int MAX_TYPES = 16;
+
+    static final Class<?>[] TYPES = {
+            E0.class, E1.class, E2.class, E3.class, E4.class, E5.class, E6.class, E7.class,
+            E8.class, E9.class, E10.class, E11.class, E12.class, E13.class, E14.class, E15.class,
+    };
+
+    static final Object[] INSTANCES = {
+            new E0(), new E1(), new E2(), new E3(), new E4(), new E5(), new E6(), new E7(),
+            new E8(), new E9(), new E10(), new E11(), new E12(), new E13(), new E14(), new E15(),
+    };
+
+    private Events() {
+    }
+
+    static final class E0 {
+    }
+
+    static final class E1 {
+    }
+
+    static final class E2 {
+    }
+
+    static final class E3 {
+    }
+
+    static final class E4 {
+    }
+
+    static final class E5 {
+    }
+
+    static final class E6 {
+    }
+
+    static final class E7 {
+    }
+
+    static final class E8 {
+    }
+
+    static final class E9 {
+    }
+
+    static final class E10 {
+    }
+
+    static final class E11 {
+    }
+
+    static final class E12 {
+    }
+
+    static final class E13 {
+    }
+
+    static final class E14 {
+    }
+
+    static final class E15 {
+    }
+}
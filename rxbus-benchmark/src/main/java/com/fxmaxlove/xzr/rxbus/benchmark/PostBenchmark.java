@@ -0,0 +1,93 @@
+package com.fxmaxlove.xzr.rxbus.benchmark;
+
+import com.fxmaxlove.xzr.rxbus.BaseBus;
+import com.fxmaxlove.xzr.rxbus.BehaviorBus;
+import com.fxmaxlove.xzr.rxbus.RxBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.functions.Consumer;
+
+/**
+ * Single-producer {@code post} cost as a function of subscriber count and number of distinct event types.
+ * <p>Subscribers are spread evenly over {@code eventTypes} types and receive on the posting thread,
+ * so the score is the full synchronous delivery cost of one post.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PostBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int subscribers;
+
+    @Param({"1", "4", "16"})
+    public int eventTypes;
+
+    @Param({"shared", "typeIndexed", "behavior"})
+    public String dispatch;
+
+    private BaseBus bus;
+    private CompositeDisposable disposables;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(final Blackhole blackhole) {
+        if ("typeIndexed".equals(dispatch)) {
+            bus = RxBus.typeIndexed();
+        } else if ("behavior".equals(dispatch)) {
+            bus = new BehaviorBus();
+        } else {
+            bus = new RxBus();
+        }
+        disposables = new CompositeDisposable();
+        Consumer<Object> consumer = new Consumer<Object>() {
+            @Override
+            public void accept(Object event) throws Exception {
+                blackhole.consume(event);
+            }
+        };
+        for (int i = 0; i < subscribers; i++) {
+            disposables.add(bus.ofType(Events.TYPES[i % eventTypes]).subscribe(consumer));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        disposables.dispose();
+    }
+
+    @Benchmark
+    public void post() {
+        int index = next;
+        next = index + 1 == eventTypes ? 0 : index + 1;
+        bus.post(Events.INSTANCES[index]);
+    }
+
+    /**
+     * Posting a type nobody listens to.
+     */
+    @Benchmark
+    public void postUnobserved() {
+        bus.post(this);
+    }
+}
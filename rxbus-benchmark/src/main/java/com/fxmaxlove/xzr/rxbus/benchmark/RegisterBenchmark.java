@@ -0,0 +1,54 @@
+package com.fxmaxlove.xzr.rxbus.benchmark;
+
+import com.fxmaxlove.xzr.rxbus.BaseBus;
+import com.fxmaxlove.xzr.rxbus.RxBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * {@code register} + {@code unregister} of one subscriber instance, by number of {@code @RxSubscribe} methods.
+ * <p>The per-class method cache is warm after the first operation, so this is the steady-state cost
+ * of registering another instance of an already known class.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class RegisterBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int methods;
+
+    private RxBus bus;
+    private Object subscriber;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BaseBus.setMainScheduler(Schedulers.trampoline());
+        bus = new RxBus();
+        subscriber = Subscribers.create(methods);
+    }
+
+    @Benchmark
+    public void registerUnregister() {
+        bus.register(subscriber);
+        bus.unregister(subscriber);
+    }
+}
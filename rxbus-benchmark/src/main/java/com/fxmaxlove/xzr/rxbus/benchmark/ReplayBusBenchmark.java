@@ -0,0 +1,76 @@
+package com.fxmaxlove.xzr.rxbus.benchmark;
+
+import com.fxmaxlove.xzr.rxbus.ReplayBus;
+import com.fxmaxlove.xzr.rxbus.StickyPolicy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.internal.functions.Functions;
+
+/**
+ * Late-subscriber replay cost. The default {@link ReplayBus} keeps every event ever posted and a late
+ * subscriber filters the whole history; the bounded bus replays only its own type, at most 1000 events.
+ * <p>Retained heap per posted event is measured by {@link ReplayBusMemory}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ReplayBusBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int posted;
+
+    @Param({"unbounded", "lastN"})
+    public String history;
+
+    private ReplayBus bus;
+    private Disposable observer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bus = "lastN".equals(history) ? new ReplayBus(StickyPolicy.lastN(1000)) : new ReplayBus();
+        // events posted while nobody observes the bus are not recorded
+        observer = bus.ofType(Object.class).subscribe(Functions.emptyConsumer());
+        for (int i = 0; i < posted; i++) {
+            bus.post(Events.INSTANCES[i % Events.MAX_TYPES]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        observer.dispose();
+    }
+
+    /**
+     * Subscribing to one type of {@link Events#MAX_TYPES}.
+     */
+    @Benchmark
+    public void lateSubscriber(final Blackhole blackhole) {
+        bus.ofType(Events.E0.class).subscribe(new Consumer<Events.E0>() {
+            @Override
+            public void accept(Events.E0 e) throws Exception {
+                blackhole.consume(e);
+            }
+        }).dispose();
+    }
+}
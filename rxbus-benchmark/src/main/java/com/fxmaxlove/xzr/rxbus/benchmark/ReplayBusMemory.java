@@ -0,0 +1,68 @@
+package com.fxmaxlove.xzr.rxbus.benchmark;
+
+import com.fxmaxlove.xzr.rxbus.ReplayBus;
+import com.fxmaxlove.xzr.rxbus.StickyPolicy;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.functions.Functions;
+
+/**
+ * Retained heap of a {@link ReplayBus} after posting N events, measured after full GCs,
+ * for the default unbounded bus and for a bus bounded to the last 1000 events per type.
+ * <pre>
+ * java -cp rxbus-benchmark-jmh.jar com.fxmaxlove.xzr.rxbus.benchmark.ReplayBusMemory [N...]
+ * </pre>
+ * Run with a fixed heap ({@code -Xms1g -Xmx1g}) so the numbers are comparable between runs.
+ */
+public final class ReplayBusMemory {
+
+    private static final int[] DEFAULT_COUNTS = {1000, 10000, 100000, 1000000};
+
+    /** keeps the bus being measured reachable */
+    private static volatile ReplayBus retainedBus;
+
+    private ReplayBusMemory() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0) {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.printf("%10s %12s %16s %14s%n", "history", "events", "retained bytes", "bytes/event");
+        for (int count : counts) {
+            measure("unbounded", null, count);
+        }
+        for (int count : counts) {
+            measure("lastN", StickyPolicy.lastN(1000), count);
+        }
+    }
+
+    private static void measure(String history, StickyPolicy policy, int count) throws InterruptedException {
+        long before = usedHeap();
+        ReplayBus bus = policy == null ? new ReplayBus() : new ReplayBus(policy);
+        retainedBus = bus;
+        // events posted while nobody observes the default bus are not recorded
+        Disposable observer = bus.ofType(Object.class).subscribe(Functions.emptyConsumer());
+        for (int i = 0; i < count; i++) {
+            // distinct instances, as real events would be
+            bus.post(new Events.E0());
+        }
+        long retained = usedHeap() - before;
+        System.out.printf("%10s %12d %16d %14.1f%n", history, count, retained, (double) retained / count);
+        observer.dispose();
+        retainedBus = null;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
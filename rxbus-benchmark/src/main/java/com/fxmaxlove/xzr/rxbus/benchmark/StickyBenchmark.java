@@ -0,0 +1,86 @@
+package com.fxmaxlove.xzr.rxbus.benchmark;
+
+import com.fxmaxlove.xzr.rxbus.RxBus;
+import com.fxmaxlove.xzr.rxbus.StickyPolicy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.functions.Consumer;
+
+/**
+ * {@code postSticky} and {@code ofStickyType} as the sticky list of a type grows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class StickyBenchmark {
+
+    @Param({"0", "100", "10000"})
+    public int stored;
+
+    @Param({"unbounded", "latest", "last100"})
+    public String policy;
+
+    private RxBus bus;
+    private Object event;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        StickyPolicy stickyPolicy;
+        if ("latest".equals(policy)) {
+            stickyPolicy = StickyPolicy.latest();
+        } else if ("last100".equals(policy)) {
+            stickyPolicy = StickyPolicy.lastN(100);
+        } else {
+            stickyPolicy = StickyPolicy.unbounded();
+        }
+        bus = new RxBus.Builder().defaultStickyPolicy(stickyPolicy).build();
+        event = Events.INSTANCES[0];
+        for (int i = 0; i < stored; i++) {
+            bus.postSticky(event);
+        }
+    }
+
+    /**
+     * Note that with the unbounded policy the list keeps growing during the iteration.
+     */
+    @Benchmark
+    public void postSticky() {
+        bus.postSticky(event);
+    }
+
+    /**
+     * Subscribing replays every stored event of the type.
+     */
+    @Benchmark
+    public void ofStickyType(final Blackhole blackhole) {
+        bus.ofStickyType(Events.E0.class).subscribe(new Consumer<Events.E0>() {
+            @Override
+            public void accept(Events.E0 e) throws Exception {
+                blackhole.consume(e);
+            }
+        }).dispose();
+    }
+
+    @Benchmark
+    public Object getSticky() {
+        return bus.getSticky(Events.E0.class);
+    }
+}
@@ -0,0 +1,277 @@
+package com.fxmaxlove.xzr.rxbus.benchmark;
+
+import com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe;
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+
+/**
+ * Subscriber classes of different sizes for {@link RegisterBenchmark}.
+ * <p>The benchmark module does not run rxbus-compiler, so these register through the reflective path.</p>
+ */
+final class Subscribers {
+
+    private Subscribers() {
+    }
+
+    static Object create(int methods) {
+        switch (methods) {
+            case 1:
+                return new Subscriber1();
+            case 10:
+                return new Subscriber10();
+            case 50:
+                return new Subscriber50();
+            default:
+                throw new IllegalArgumentException("No subscriber with " + methods + " methods");
+        }
+    }
+
+    public static final class Subscriber1 {
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on0(Events.E0 event) {
+        }
+    }
+
+    public static final class Subscriber10 {
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on0(Events.E0 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on1(Events.E1 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on2(Events.E2 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on3(Events.E3 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on4(Events.E4 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on5(Events.E5 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on6(Events.E6 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on7(Events.E7 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on8(Events.E8 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on9(Events.E9 event) {
+        }
+    }
+
+    public static final class Subscriber50 {
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on0(Events.E0 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on1(Events.E1 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on2(Events.E2 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on3(Events.E3 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on4(Events.E4 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on5(Events.E5 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on6(Events.E6 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on7(Events.E7 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on8(Events.E8 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on9(Events.E9 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on10(Events.E10 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on11(Events.E11 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on12(Events.E12 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on13(Events.E13 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on14(Events.E14 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on15(Events.E15 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on16(Events.E0 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on17(Events.E1 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on18(Events.E2 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on19(Events.E3 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on20(Events.E4 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on21(Events.E5 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on22(Events.E6 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on23(Events.E7 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on24(Events.E8 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on25(Events.E9 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on26(Events.E10 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on27(Events.E11 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on28(Events.E12 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on29(Events.E13 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on30(Events.E14 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on31(Events.E15 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on32(Events.E0 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on33(Events.E1 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on34(Events.E2 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on35(Events.E3 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on36(Events.E4 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on37(Events.E5 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on38(Events.E6 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on39(Events.E7 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on40(Events.E8 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on41(Events.E9 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on42(Events.E10 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on43(Events.E11 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on44(Events.E12 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on45(Events.E13 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on46(Events.E14 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on47(Events.E15 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on48(Events.E0 event) {
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        void on49(Events.E1 event) {
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.fxmaxlove.xzr.rxbus.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * 编译期扫描 {@code @RxSubscribe}，为每个订阅者类生成 {@code SubscriberInfo} 索引
+ */
+public class RxSubscribeProcessor extends AbstractProcessor {
+
+    static final String RX_SUBSCRIBE = "com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe";
+    static final String SUFFIX = "_RxIndex";
+    /** 通道方法不按事件类型订阅，这些属性不会生效 */
+    static final String[] CHANNEL_CONFLICTS = {"isSticky", "topic", "throttleFirstMillis", "debounceMillis",
+            "sampleMillis", "distinct", "maxRatePerSecond"};
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(RX_SUBSCRIBE);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement rxSubscribe = elements.getTypeElement(RX_SUBSCRIBE);
+        if (rxSubscribe == null) {
+            return false;
+        }
+        Map<TypeElement, List<ExecutableElement>> subscribers = new LinkedHashMap<>();
+        // 有 private 或 static 方法的类不生成索引，运行时通过反射注册
+        Set<TypeElement> reflective = new HashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(rxSubscribe)) {
+            if (element.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            ExecutableElement method = (ExecutableElement) element;
+            if (!checkMethod(method, rxSubscribe)) {
+                continue;
+            }
+            TypeElement subscriberClass = (TypeElement) method.getEnclosingElement();
+            if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                warning(method, "@RxSubscribe method is private, " + subscriberClass.getQualifiedName()
+                        + " is registered by reflection instead of a generated index");
+                reflective.add(subscriberClass);
+            } else if (method.getModifiers().contains(Modifier.STATIC)) {
+                warning(method, "@RxSubscribe method is static, " + subscriberClass.getQualifiedName()
+                        + " is registered by reflection instead of a generated index");
+                reflective.add(subscriberClass);
+            }
+            List<ExecutableElement> methods = subscribers.get(subscriberClass);
+            if (methods == null) {
+                methods = new ArrayList<>();
+                subscribers.put(subscriberClass, methods);
+            }
+            methods.add(method);
+        }
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : subscribers.entrySet()) {
+            if (!reflective.contains(entry.getKey()) && checkClass(entry.getKey())) {
+                writeIndex(entry.getKey(), entry.getValue(), rxSubscribe);
+            }
+        }
+        return true;
+    }
+
+    private boolean checkMethod(ExecutableElement method, TypeElement rxSubscribe) {
+        if (method.getParameters().size() != 1) {
+            error(method, "@RxSubscribe method must have exactly one parameter");
+            return false;
+        }
+        if (!isChannelMethod(method, rxSubscribe)) {
+            return true;
+        }
+        if (channelKind(method) == null) {
+            error(method, "@RxSubscribe method with a channel must have an int, long or double parameter");
+            return false;
+        }
+        Map<String, AnnotationValue> values = annotationValues(annotationMirror(method, rxSubscribe));
+        for (String attribute : CHANNEL_CONFLICTS) {
+            if (isSet(values.get(attribute))) {
+                error(method, "@RxSubscribe method with a channel does not support " + attribute);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 属性值不是默认的 false、0 或者空字符串
+     */
+    private static boolean isSet(AnnotationValue value) {
+        Object v = value.getValue();
+        if (v instanceof Boolean) {
+            return (Boolean) v;
+        }
+        if (v instanceof Number) {
+            return ((Number) v).longValue() != 0;
+        }
+        return !v.toString().isEmpty();
+    }
+
+    private boolean checkClass(TypeElement subscriberClass) {
+        Element element = subscriberClass;
+        while (element.getKind().isClass() || element.getKind().isInterface()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                warning(subscriberClass, "Subscriber class with @RxSubscribe methods is private,"
+                        + " it is registered by reflection instead of a generated index");
+                return false;
+            }
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private void writeIndex(TypeElement subscriberClass, List<ExecutableElement> methods,
+                            TypeElement rxSubscribe) {
+        PackageElement packageElement = elements.getPackageOf(subscriberClass);
+        String packageName = packageElement.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(subscriberClass).toString();
+        String className = (packageName.isEmpty() ? binaryName
+                : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        String targetType = types.erasure(subscriberClass.asType()).toString();
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated code from RxBus. Do not modify!\n");
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        boolean hasChannels = false;
+        for (ExecutableElement method : methods) {
+            hasChannels |= isChannelMethod(method, rxSubscribe);
+        }
+        String infoType = hasChannels ? "ChannelSubscriberInfo" : "SubscriberInfo";
+        source.append("import com.fxmaxlove.xzr.rxbus.index.").append(infoType).append(";\n");
+        source.append("import com.fxmaxlove.xzr.rxbus.index.SubscriberMethodInfo;\n\n");
+        source.append("public final class ").append(className).append(" implements ").append(infoType).append(" {\n\n");
+        source.append("    private static final SubscriberMethodInfo[] METHODS = {\n");
+        for (ExecutableElement method : methods) {
+            AnnotationMirror mirror = annotationMirror(method, rxSubscribe);
+            Map<String, AnnotationValue> values = annotationValues(mirror);
+            Set<String> explicit = explicitNames(mirror);
+            source.append("        new SubscriberMethodInfo.Builder(\"")
+                    .append(method.getSimpleName()).append("\", ")
+                    .append(eventType(method)).append(".class, ")
+                    .append(literal(values.get("observeOnThread"))).append(", ")
+                    .append(literal(values.get("isSticky")))
+                    .append(")");
+            appendOption(source, "sticky", values, explicit, "stickyLimit", "stickyTtlMillis");
+            appendOption(source, "overflow", values, explicit, "overflow", "bufferSize");
+            appendOption(source, "executor", values, explicit, "executor");
+            appendOption(source, "channel", values, explicit, "channel");
+            appendOption(source, "topic", values, explicit, "topic");
+            appendOption(source, "rate", values, explicit,
+                    "throttleFirstMillis", "debounceMillis", "sampleMillis", "distinct", "maxRatePerSecond");
+            source.append(".build(),\n");
+        }
+        source.append("    };\n\n");
+        source.append("    @Override\n");
+        source.append("    public SubscriberMethodInfo[] getSubscriberMethods() {\n");
+        source.append("        return METHODS;\n");
+        source.append("    }\n\n");
+        source.append("    @Override\n");
+        source.append("    @SuppressWarnings(\"unchecked\")\n");
+        source.append("    public void invoke(Object subscriber, int index, Object event) throws Exception {\n");
+        source.append("        ").append(targetType).append(" target = (")
+                .append(targetType).append(") subscriber;\n");
+        source.append("        switch (index) {\n");
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            source.append("            case ").append(i).append(":\n");
+            String eventType = eventType(method);
+            source.append("                target.").append(method.getSimpleName()).append("(");
+            if (Object.class.getName().equals(eventType)) {
+                source.append("event);\n");
+            } else {
+                source.append("(").append(eventType).append(") event);\n");
+            }
+            source.append("                break;\n");
+        }
+        source.append("            default:\n");
+        source.append("                throw new IllegalArgumentException(\"Unknown subscriber method index \" + index);\n");
+        source.append("        }\n");
+        source.append("    }\n");
+        if (hasChannels) {
+            writeChannelInvoke(source, "invokeInt", TypeKind.INT, methods, rxSubscribe, targetType);
+            writeChannelInvoke(source, "invokeLong", TypeKind.LONG, methods, rxSubscribe, targetType);
+            writeChannelInvoke(source, "invokeDouble", TypeKind.DOUBLE, methods, rxSubscribe, targetType);
+        }
+        source.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try {
+            JavaFileObject file = filer.createSourceFile(qualifiedName, subscriberClass);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            error(subscriberClass, "Unable to write index for " + binaryName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@code ChannelSubscriberInfo} 中不装箱的调用，只包含参数为 {@code kind} 的通道方法
+     */
+    private void writeChannelInvoke(StringBuilder source, String name, TypeKind kind,
+                                    List<ExecutableElement> methods, TypeElement rxSubscribe, String targetType) {
+        String valueType = types.getPrimitiveType(kind).toString();
+        source.append("\n    @Override\n");
+        source.append("    public void ").append(name).append("(Object subscriber, int index, ")
+                .append(valueType).append(" value) throws Exception {\n");
+        source.append("        ").append(targetType).append(" target = (")
+                .append(targetType).append(") subscriber;\n");
+        source.append("        switch (index) {\n");
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            if (!isChannelMethod(method, rxSubscribe) || channelKind(method) != kind) {
+                continue;
+            }
+            source.append("            case ").append(i).append(":\n");
+            source.append("                target.").append(method.getSimpleName()).append("(value);\n");
+            source.append("                break;\n");
+        }
+        source.append("            default:\n");
+        source.append("                throw new IllegalArgumentException(\"Unknown ").append(valueType)
+                .append(" channel method index \" + index);\n");
+        source.append("        }\n");
+        source.append("    }\n");
+    }
+
+    private boolean isChannelMethod(ExecutableElement method, TypeElement rxSubscribe) {
+        AnnotationValue channel = annotationValues(annotationMirror(method, rxSubscribe)).get("channel");
+        return channel != null && !channel.getValue().toString().isEmpty();
+    }
+
+    /**
+     * 通道方法支持的参数类型，其他类型返回 null
+     */
+    private TypeKind channelKind(ExecutableElement method) {
+        TypeKind kind = method.getParameters().get(0).asType().getKind();
+        return kind == TypeKind.INT || kind == TypeKind.LONG || kind == TypeKind.DOUBLE ? kind : null;
+    }
+
+    /**
+     * 事件类型，基本类型转换为包装类型，泛型取擦除后的类型
+     */
+    private String eventType(ExecutableElement method) {
+        TypeMirror type = method.getParameters().get(0).asType();
+        if (type.getKind().isPrimitive()) {
+            return types.boxedClass(types.getPrimitiveType(type.getKind())).getQualifiedName().toString();
+        }
+        if (type.getKind() == TypeKind.TYPEVAR || type.getKind() == TypeKind.DECLARED
+                || type.getKind() == TypeKind.ARRAY) {
+            return types.erasure(type).toString();
+        }
+        return type.toString();
+    }
+
+    /**
+     * 注解上显式设置过其中任意一个属性时，生成 {@code .option(attr1, attr2...)}
+     */
+    private void appendOption(StringBuilder source, String option, Map<String, AnnotationValue> values,
+                              Set<String> explicit, String... attributes) {
+        boolean present = false;
+        for (String attribute : attributes) {
+            present |= explicit.contains(attribute);
+        }
+        if (!present) {
+            return;
+        }
+        source.append("\n                .").append(option).append("(");
+        for (int i = 0; i < attributes.length; i++) {
+            if (i > 0) {
+                source.append(", ");
+            }
+            source.append(literal(values.get(attributes[i])));
+        }
+        source.append(")");
+    }
+
+    /**
+     * 注解属性值对应的 Java 字面量，枚举使用全限定名
+     */
+    private String literal(AnnotationValue value) {
+        Object v = value.getValue();
+        if (v instanceof VariableElement) {
+            VariableElement constant = (VariableElement) v;
+            TypeElement enumType = (TypeElement) constant.getEnclosingElement();
+            return enumType.getQualifiedName() + "." + constant.getSimpleName();
+        }
+        return elements.getConstantExpression(v);
+    }
+
+    private AnnotationMirror annotationMirror(Element element, TypeElement annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (types.isSameType(mirror.getAnnotationType(), annotation.asType())) {
+                return mirror;
+            }
+        }
+        throw new IllegalStateException("Missing @" + annotation.getSimpleName() + " on " + element);
+    }
+
+    private Map<String, AnnotationValue> annotationValues(AnnotationMirror mirror) {
+        Map<String, AnnotationValue> values = new LinkedHashMap<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            values.put(entry.getKey().getSimpleName().toString(), entry.getValue());
+        }
+        return values;
+    }
+
+    private Set<String> explicitNames(AnnotationMirror mirror) {
+        Set<String> names = new HashSet<>();
+        for (ExecutableElement element : mirror.getElementValues().keySet()) {
+            names.add(element.getSimpleName().toString());
+        }
+        return names;
+    }
+
+    private void error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void warning(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+}
@@ -0,0 +1,84 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 异步 post 的配置，通过 {@link BaseBus#startAsyncPost(AsyncPolicy)} 或 {@link RxBus.Builder#async(AsyncPolicy)} 开启
+ * <p>post 只把事件放进预先分配的环形缓冲区，由专门的分发线程送到订阅者，post 的开销与订阅者个数无关。
+ * 有多个分发线程时按事件类选择缓冲区，同一事件类的事件保持发送顺序。</p>
+ */
+public final class AsyncPolicy {
+
+    /**
+     * 分发线程没有事件时的等待方式；{@link Overflow#BLOCK} 的 post 等待空位时总是自旋、yield 之后挂起
+     */
+    public enum WaitStrategy {
+        /**
+         * 一直自旋，延迟最低，一直占用一个 CPU
+         */
+        SPIN,
+        /**
+         * 自旋一段时间后 {@link Thread#yield()}
+         */
+        YIELD,
+        /**
+         * 自旋、yield 之后挂起线程，post 时唤醒，空闲时不占用 CPU
+         */
+        PARK
+    }
+
+    /**
+     * 缓冲区满时 post 的处理方式
+     */
+    public enum Overflow {
+        /**
+         * 等待分发线程腾出空位
+         */
+        BLOCK,
+        /**
+         * 丢弃该事件，丢弃的个数见 {@link BaseBus#getAsyncDroppedCount()}
+         */
+        DROP
+    }
+
+    final int bufferSize;
+    final int dispatchers;
+    final WaitStrategy waitStrategy;
+    final Overflow overflow;
+
+    private AsyncPolicy(int bufferSize, int dispatchers, WaitStrategy waitStrategy, Overflow overflow) {
+        this.bufferSize = bufferSize;
+        this.dispatchers = dispatchers;
+        this.waitStrategy = waitStrategy;
+        this.overflow = overflow;
+    }
+
+    /**
+     * 一个分发线程，{@link WaitStrategy#PARK}，{@link Overflow#BLOCK}
+     * @param bufferSize 每个分发线程的缓冲区大小，向上取 2 的幂
+     */
+    public static AsyncPolicy bufferSize(int bufferSize) {
+        ObjectHelper.verifyPositive(bufferSize, "bufferSize");
+        if (bufferSize > 1 << 30) {
+            throw new IllegalArgumentException("bufferSize <= 2^30 required but it was " + bufferSize);
+        }
+        int size = Integer.highestOneBit(bufferSize);
+        return new AsyncPolicy(size == bufferSize ? size : size << 1, 1, WaitStrategy.PARK, Overflow.BLOCK);
+    }
+
+    public AsyncPolicy withDispatchers(int dispatchers) {
+        ObjectHelper.verifyPositive(dispatchers, "dispatchers");
+        return new AsyncPolicy(bufferSize, dispatchers, waitStrategy, overflow);
+    }
+
+    public AsyncPolicy withWaitStrategy(@NonNull WaitStrategy waitStrategy) {
+        ObjectHelper.requireNonNull(waitStrategy, "waitStrategy == null");
+        return new AsyncPolicy(bufferSize, dispatchers, waitStrategy, overflow);
+    }
+
+    public AsyncPolicy withOverflow(@NonNull Overflow overflow) {
+        ObjectHelper.requireNonNull(overflow, "overflow == null");
+        return new AsyncPolicy(bufferSize, dispatchers, waitStrategy, overflow);
+    }
+}
@@ -0,0 +1,616 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+import com.fxmaxlove.xzr.rxbus.util.Logger;
+import com.fxmaxlove.xzr.rxbus.util.RxBusLog;
+import com.jakewharton.rxrelay2.PublishRelay;
+import com.jakewharton.rxrelay2.Relay;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.annotations.Nullable;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * bus基类
+ * <p>默认所有事件经过同一个 {@link Relay}，订阅者通过 {@code ofType} 过滤；
+ * 使用 {@link #BaseBus(RelayFactory)} 创建时按事件类型分发，每个订阅类型一个 {@link Relay}，
+ * post 只会到达事件类本身及其父类、接口的订阅者。</p>
+ * <p>使用 {@link #BaseBus(int, ShardKeySelector)} 创建时分成固定个数的分片，每个分片有独立的 {@link Relay} 和串行化的锁，
+ * 不同分片的 post 互不阻塞，同一分片内的事件保持顺序。</p>
+ */
+public class BaseBus implements Bus {
+
+    /**
+     * 按事件类型分发时，为每个订阅类型创建 {@link Relay}
+     */
+    public interface RelayFactory {
+        Relay<Object> create();
+    }
+
+    /**
+     * 分片时决定事件所在的分片，key 相同的事件在同一分片，保持发送顺序
+     */
+    public interface ShardKeySelector {
+        Object shardKey(Object event);
+    }
+
+    /**
+     * 并行送达：同一个 relay 的订阅者达到 {@code minSubscribers} 个时，post 只把事件放进每个订阅者自己的队列，
+     * 由 {@code scheduler} 的多个线程同时调用不同的订阅者，每个订阅者收到的顺序不变
+     * <p>用于 {@link #BaseBus(RelayFactory)}，或者 {@code RxBus.Builder#parallelFanOut}；
+     * 用 {@link #postAndAwait(Object)} 等待所有订阅者处理完</p>
+     * @param scheduler 通常是 {@code Schedulers.computation()}
+     */
+    public static RelayFactory parallelFanOut(final int minSubscribers, @NonNull final Scheduler scheduler) {
+        ObjectHelper.verifyPositive(minSubscribers, "minSubscribers");
+        ObjectHelper.requireNonNull(scheduler, "scheduler == null");
+        return new RelayFactory() {
+            @Override
+            public Relay<Object> create() {
+                return new FanOutRelay<>(minSubscribers, scheduler);
+            }
+        };
+    }
+
+    /**
+     * 初始化配置
+     * @param mainScheduler 事件接收线程
+     */
+    public static void config(@NonNull Scheduler mainScheduler) {
+        ObjectHelper.requireNonNull(mainScheduler, "mainScheduler == null ");
+        EventThread.setMainThreadScheduler(mainScheduler);
+    }
+
+
+    /**
+     * 设置事件接收的线程
+     */
+    public static void setMainScheduler(@NonNull Scheduler mainScheduler) {
+        EventThread.setMainThreadScheduler(mainScheduler);
+    }
+
+    /**
+     * 设置日志输出，默认只把错误输出到 {@code System.err}
+     * @see RxBusLog
+     */
+    public static void setLogger(@NonNull Logger logger) {
+        RxBusLog.setLogger(logger);
+    }
+
+    private SerializedBatchRelay<Object> relay;
+    private RelayFactory relayFactory;
+    private ConcurrentMap<Class<?>, SerializedBatchRelay<Object>> typeRelays;
+    private SerializedBatchRelay<Object>[] shards;
+    private ShardKeySelector shardKeySelector;
+    private volatile BusMetrics metrics;
+    private volatile RingDispatcher dispatcher;
+    private volatile ProcessBridge bridge;
+    private volatile EventJournal journal;
+    private final ConcurrentMap<String, PrimitiveChannel> channels = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, EventPool<?>> pools = new ConcurrentHashMap<>();
+    private final TopicIndex topics = new TopicIndex();
+    /** 已经停止的异步 post 丢弃的事件个数 */
+    private long droppedCount;
+
+    public BaseBus(Relay<Object> relay) {
+        this(relay, null);
+    }
+
+    /**
+     * 按事件类型分发
+     * @param relayFactory 为每个订阅类型创建 {@link Relay}
+     */
+    public BaseBus(@NonNull RelayFactory relayFactory) {
+        this(null, ObjectHelper.requireNonNull(relayFactory, "relayFactory == null"));
+    }
+
+    /**
+     * 分片分发，每个分片一个 {@link PublishRelay}
+     * <p>不同分片的事件到达同一个订阅者时仍然是串行的，但是不保证分片之间的先后顺序</p>
+     * <p>按事件类分片时，只有订阅 final 类（没有子类）的订阅者只订阅一个分片；订阅非 final 类、接口
+     * 或者使用 {@code shardKeySelector} 时事件可能在任何分片中，订阅者订阅所有分片</p>
+     * @param shardCount 分片个数
+     * @param shardKeySelector 为 null 时按事件类分片
+     */
+    public BaseBus(int shardCount, @Nullable ShardKeySelector shardKeySelector) {
+        this(null, null, ObjectHelper.verifyPositive(shardCount, "shardCount"), shardKeySelector);
+    }
+
+    BaseBus(@Nullable Relay<Object> relay, @Nullable RelayFactory relayFactory) {
+        this(relay, relayFactory, 0, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    BaseBus(@Nullable Relay<Object> relay, @Nullable RelayFactory relayFactory,
+            int shardCount, @Nullable ShardKeySelector shardKeySelector) {
+        if (shardCount > 0) {
+            this.shards = (SerializedBatchRelay<Object>[]) new SerializedBatchRelay<?>[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = SerializedBatchRelay.wrap(
+                        relayFactory == null ? PublishRelay.create() : relayFactory.create());
+            }
+            this.shardKeySelector = shardKeySelector;
+        } else if (relayFactory != null) {
+            this.relayFactory = relayFactory;
+            this.typeRelays = new ConcurrentHashMap<>();
+        } else {
+            this.relay = SerializedBatchRelay.wrap(relay);
+        }
+    }
+
+    /**
+     * 按名字获取 int 通道，第一次获取时创建，见 {@link IntChannel}
+     * @throws IllegalArgumentException 该名字已经是其他类型的通道
+     */
+    public IntChannel intChannel(@NonNull String name) {
+        PrimitiveChannel channel = channel(name);
+        if (channel == null) {
+            channel = putChannel(new IntChannel(name));
+        }
+        return checkChannel(channel, IntChannel.class);
+    }
+
+    /**
+     * 按名字获取 long 通道，第一次获取时创建，见 {@link LongChannel}
+     * @throws IllegalArgumentException 该名字已经是其他类型的通道
+     */
+    public LongChannel longChannel(@NonNull String name) {
+        PrimitiveChannel channel = channel(name);
+        if (channel == null) {
+            channel = putChannel(new LongChannel(name));
+        }
+        return checkChannel(channel, LongChannel.class);
+    }
+
+    /**
+     * 按名字获取 double 通道，第一次获取时创建，见 {@link DoubleChannel}
+     * @throws IllegalArgumentException 该名字已经是其他类型的通道
+     */
+    public DoubleChannel doubleChannel(@NonNull String name) {
+        PrimitiveChannel channel = channel(name);
+        if (channel == null) {
+            channel = putChannel(new DoubleChannel(name));
+        }
+        return checkChannel(channel, DoubleChannel.class);
+    }
+
+    private PrimitiveChannel channel(String name) {
+        return channels.get(ObjectHelper.requireNonNull(name, "name == null"));
+    }
+
+    private PrimitiveChannel putChannel(PrimitiveChannel created) {
+        PrimitiveChannel channel = channels.putIfAbsent(created.name, created);
+        return channel == null ? created : channel;
+    }
+
+    /**
+     * 按类型获取事件池，第一次获取时用 {@code factory} 创建，见 {@link PooledEvent}
+     * <p>{@code post} 接管池化事件的引用，最后一个订阅者处理完后事件回到池中</p>
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends PooledEvent> EventPool<T> pool(@NonNull Class<T> eventType, @NonNull EventPool.Factory<T> factory) {
+        ObjectHelper.requireNonNull(eventType, "eventType == null");
+        EventPool<?> pool = pools.get(eventType);
+        if (pool == null) {
+            EventPool<T> created = new EventPool<>(factory);
+            pool = pools.putIfAbsent(eventType, created);
+            if (pool == null) {
+                pool = created;
+            }
+        }
+        return (EventPool<T>) pool;
+    }
+
+    private static <C extends PrimitiveChannel> C checkChannel(PrimitiveChannel channel, Class<C> channelType) {
+        if (!channelType.isInstance(channel)) {
+            throw new IllegalArgumentException(channel + " is not a " + channelType.getSimpleName());
+        }
+        return channelType.cast(channel);
+    }
+
+    /**
+     * 开启或关闭（null）运行统计，见 {@link BusMetrics}
+     */
+    public void setMetrics(@Nullable BusMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Nullable
+    public BusMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 开启异步 post：之后的 post 只把事件放进缓冲区，由分发线程送到订阅者
+     * @throws IllegalStateException 已经开启
+     */
+    public synchronized void startAsyncPost(@NonNull AsyncPolicy policy) {
+        ObjectHelper.requireNonNull(policy, "policy == null");
+        if (dispatcher != null) {
+            throw new IllegalStateException("async post already started");
+        }
+        dispatcher = new RingDispatcher(this, policy);
+    }
+
+    /**
+     * 恢复同步 post，等待分发线程送完停止之前 post 的事件
+     */
+    public synchronized void stopAsyncPost() {
+        RingDispatcher dispatcher = this.dispatcher;
+        if (dispatcher != null) {
+            this.dispatcher = null;
+            dispatcher.stop();
+            droppedCount += dispatcher.getDroppedCount();
+        }
+    }
+
+    /**
+     * @return 异步 post 因为缓冲区满丢弃的事件个数，{@link AsyncPolicy.Overflow#DROP}
+     */
+    public synchronized long getAsyncDroppedCount() {
+        RingDispatcher dispatcher = this.dispatcher;
+        return droppedCount + (dispatcher == null ? 0 : dispatcher.getDroppedCount());
+    }
+
+    /**
+     * 记录之后 post 的事件，为 null 时停止记录
+     * {@link EventJournal}
+     */
+    public void setJournal(@Nullable EventJournal journal) {
+        this.journal = journal;
+    }
+
+    @Nullable
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * @return {@code bridge} 不是 {@code expect} 时不修改，返回 false
+     */
+    synchronized boolean setBridge(@Nullable ProcessBridge expect, @Nullable ProcessBridge update) {
+        if (bridge != expect) {
+            return false;
+        }
+        bridge = update;
+        return true;
+    }
+
+    @Override
+    public void post(@NonNull Object event) {
+        ObjectHelper.requireNonNull(event, "event == null");
+        PooledEvent.checkNotReleased(event);
+        expungeStaleSubscribers();
+        BusMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.onPost(event.getClass());
+        }
+        EventJournal journal = this.journal;
+        if (journal != null) {
+            journal.record(event);
+        }
+        ProcessBridge bridge = this.bridge;
+        if (bridge != null) {
+            bridge.publish(event);
+        }
+        postLocal(event);
+    }
+
+    /**
+     * 按主题发送，只送到 {@link #ofTopic(String, Class)} 订阅了该主题或匹配的通配符的订阅者，
+     * 不经过 {@link #ofType(Class)}
+     * <p>在当前线程同步送达，不经过异步 post、{@link ProcessBridge} 和 {@link EventJournal}</p>
+     * @param topic 按 {@code .} 分段的主题，例如 {@code user.42.profile}
+     */
+    public void post(@NonNull String topic, @NonNull Object event) {
+        ObjectHelper.requireNonNull(topic, "topic == null");
+        ObjectHelper.requireNonNull(event, "event == null");
+        PooledEvent.checkNotReleased(event);
+        expungeStaleSubscribers();
+        BusMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.onPost(event.getClass());
+        }
+        topics.dispatch(topic, event);
+        PooledEvent.releaseIfPooled(event);
+    }
+
+    /**
+     * 订阅主题，只接收之后通过 {@link #post(String, Object)} 发送到该主题的 {@code eventType} 事件
+     * @param topic 主题或者通配符，{@code *} 匹配一段，最后一段的 {@code #} 匹配之后的零段或多段
+     * @throws IllegalArgumentException 通配符格式错误
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Observable<T> ofTopic(@NonNull String topic, Class<T> eventType) {
+        ObjectHelper.requireNonNull(topic, "topic == null");
+        Observable<Object> source = topics.observe(topic);
+        if (eventType.equals(Object.class)) {
+            return (Observable<T>) source;
+        }
+        return source.ofType(eventType);
+    }
+
+    /**
+     * 该主题的事件现在 post 时是否有订阅者
+     */
+    public boolean hasObservers(@NonNull String topic) {
+        ObjectHelper.requireNonNull(topic, "topic == null");
+        return topics.hasObservers(topic);
+    }
+
+    /**
+     * post 时清理已被回收、没有 unregister 的订阅者，{@link RxBus} 覆盖
+     */
+    void expungeStaleSubscribers() {
+    }
+
+    /**
+     * 只在本进程发送，{@link ProcessBridge} 收到的事件通过这里发送
+     */
+    void postLocal(Object event) {
+        RingDispatcher dispatcher = this.dispatcher;
+        if (dispatcher != null) {
+            dispatcher.post(event);
+            return;
+        }
+        dispatch(event);
+    }
+
+    /**
+     * 在当前线程送到订阅者，之后释放 post 接管的 {@link PooledEvent} 引用
+     */
+    void dispatch(Object event) {
+        if (event instanceof DeliveryBarrier) {
+            dispatchBarrier((DeliveryBarrier) event);
+            return;
+        }
+        route(event);
+        PooledEvent.releaseIfPooled(event);
+    }
+
+    private void route(Object event) {
+        if (shards != null) {
+            SerializedBatchRelay<Object> shard = shard(event);
+            if (shard.hasObservers()) {
+                shard.accept(event);
+            }
+            return;
+        }
+        if (relayFactory == null) {
+            if (relay.hasObservers()) {
+                relay.accept(event);
+            }
+            return;
+        }
+        for (Class<?> type : EventTypes.of(event.getClass())) {
+            SerializedBatchRelay<Object> typeRelay = typeRelays.get(type);
+            if (typeRelay != null && typeRelay.hasObservers()) {
+                typeRelay.accept(event);
+            }
+        }
+    }
+
+    /**
+     * 发送到 {@link DeliveryBarrier#event} 会经过的 relay，全部发送后释放创建时的计数
+     */
+    private void dispatchBarrier(DeliveryBarrier barrier) {
+        if (shards != null) {
+            barrier.expect();
+            shard(barrier.event).accept(barrier);
+        } else if (relayFactory == null) {
+            barrier.expect();
+            relay.accept(barrier);
+        } else {
+            for (Class<?> type : EventTypes.of(barrier.event.getClass())) {
+                SerializedBatchRelay<Object> typeRelay = typeRelays.get(type);
+                if (typeRelay != null) {
+                    barrier.expect();
+                    typeRelay.accept(barrier);
+                }
+            }
+        }
+        PooledEvent.releaseIfPooled(barrier.event);
+        barrier.arrive();
+    }
+
+    /**
+     * post 并返回所有订阅者都处理完该事件时完成的 {@link Completable}
+     * <p>用于 {@link #parallelFanOut(int, Scheduler)} 和异步 post，完成时订阅者队列中排在它之前的事件也都已经处理完；
+     * 同步送达时返回前已经完成。切换了线程的订阅者只等到事件进入接收线程的队列</p>
+     */
+    public Completable postAndAwait(@NonNull Object event) {
+        // 路由 barrier 时还要读取事件，池化的事件在 dispatchBarrier 中释放
+        PooledEvent.retainIfPooled(event);
+        post(event);
+        DeliveryBarrier barrier = new DeliveryBarrier(event);
+        postLocal(barrier);
+        return barrier.completion;
+    }
+
+    /**
+     * 批量发送事件，同一个 {@link Relay} 的一批事件只获取一次串行化的锁，并且连续发送
+     * <p>每个订阅者收到的事件保持 {@code events} 中的顺序。按类型分发（{@link RxBus.Builder#typeIndexed()}）或分片时
+     * 事件先按所在的 {@link Relay} 分组，一个分组发送完才发送下一个，所以订阅不同类型的订阅者之间
+     * 不再按 {@code events} 的顺序交替收到事件：[A1, B1, A2] 中 A 的订阅者收到 A1、A2 之后 B 的订阅者才收到 B1</p>
+     * @param events 按顺序发送的事件
+     */
+    public void postAll(@NonNull Collection<?> events) {
+        ObjectHelper.requireNonNull(events, "events == null");
+        BusMetrics metrics = this.metrics;
+        for (Object event : events) {
+            ObjectHelper.requireNonNull(event, "event == null");
+            PooledEvent.checkNotReleased(event);
+            if (metrics != null) {
+                metrics.onPost(event.getClass());
+            }
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        expungeStaleSubscribers();
+        EventJournal journal = this.journal;
+        if (journal != null) {
+            for (Object event : events) {
+                journal.record(event);
+            }
+        }
+        ProcessBridge bridge = this.bridge;
+        if (bridge != null) {
+            for (Object event : events) {
+                bridge.publish(event);
+            }
+        }
+        RingDispatcher dispatcher = this.dispatcher;
+        if (dispatcher != null) {
+            for (Object event : events) {
+                dispatcher.post(event);
+            }
+            return;
+        }
+        if (shards == null && relayFactory == null) {
+            if (relay.hasObservers()) {
+                relay.acceptAll(events);
+            }
+            PooledEvent.releaseAll(events);
+            return;
+        }
+        Map<SerializedBatchRelay<Object>, List<Object>> batches = new LinkedHashMap<>();
+        for (Object event : events) {
+            if (shards != null) {
+                addToBatch(batches, shard(event), event);
+                continue;
+            }
+            for (Class<?> type : EventTypes.of(event.getClass())) {
+                addToBatch(batches, typeRelays.get(type), event);
+            }
+        }
+        for (Map.Entry<SerializedBatchRelay<Object>, List<Object>> batch : batches.entrySet()) {
+            batch.getKey().acceptAll(batch.getValue());
+        }
+        PooledEvent.releaseAll(events);
+    }
+
+    private static void addToBatch(Map<SerializedBatchRelay<Object>, List<Object>> batches,
+                                   @Nullable SerializedBatchRelay<Object> relay, Object event) {
+        if (relay == null || !relay.hasObservers()) {
+            return;
+        }
+        List<Object> batch = batches.get(relay);
+        if (batch == null) {
+            batch = new ArrayList<>();
+            batches.put(relay, batch);
+        }
+        batch.add(event);
+    }
+
+    @Override @SuppressWarnings("unchecked")
+    public <T> Observable<T> ofType(Class<T> eventType) {
+        if (shards != null) {
+            SerializedBatchRelay<Object> only = shardOf(eventType);
+            if (only != null) {
+                return only.ofType(eventType);
+            }
+            List<Observable<T>> sources = new ArrayList<>(shards.length);
+            for (SerializedBatchRelay<Object> shard : shards) {
+                sources.add(eventType.equals(Object.class) ? (Observable<T>) shard : shard.ofType(eventType));
+            }
+            return Observable.merge(sources);
+        }
+        if (relayFactory != null) {
+            return (Observable<T>) (Observable<?>) typeRelay(eventType);
+        }
+        if (eventType.equals(Object.class)) {
+            return (Observable<T>) relay;
+        }
+        return relay.ofType(eventType);
+    }
+
+    @Override
+    public boolean hasObservers() {
+        if (shards != null) {
+            for (SerializedBatchRelay<Object> shard : shards) {
+                if (shard.hasObservers()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (relayFactory == null) {
+            return relay.hasObservers();
+        }
+        for (SerializedBatchRelay<Object> typeRelay : typeRelays.values()) {
+            if (typeRelay.hasObservers()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 现在 post 一个 {@code eventType} 事件时是否有订阅者会收到，post 前用来跳过构造事件的开销
+     * <p>不在 {@link Bus} 接口中声明，已有的 {@link Bus} 实现不需要修改；不能确定时返回 true</p>
+     */
+    public boolean hasObservers(Class<?> eventType) {
+        if (shards != null) {
+            SerializedBatchRelay<Object> only = shardOf(eventType);
+            return only != null ? only.hasObservers() : hasObservers();
+        }
+        if (relayFactory == null) {
+            return relay.hasObservers();
+        }
+        for (Class<?> type : EventTypes.of(eventType)) {
+            SerializedBatchRelay<Object> typeRelay = typeRelays.get(type);
+            if (typeRelay != null && typeRelay.hasObservers()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SerializedBatchRelay<Object> shard(Object event) {
+        Object key = shardKeySelector == null ? event.getClass() : shardKeySelector.shardKey(event);
+        return shards[shardIndex(key)];
+    }
+
+    /**
+     * 按事件类分片并且 {@code eventType} 没有子类时，该类型的事件只会在一个分片中
+     */
+    @Nullable
+    private SerializedBatchRelay<Object> shardOf(Class<?> eventType) {
+        if (shardKeySelector == null && Modifier.isFinal(eventType.getModifiers()) && !eventType.isArray()) {
+            return shards[shardIndex(eventType)];
+        }
+        return null;
+    }
+
+    private int shardIndex(@Nullable Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % shards.length;
+    }
+
+    private SerializedBatchRelay<Object> typeRelay(Class<?> eventType) {
+        SerializedBatchRelay<Object> typeRelay = typeRelays.get(eventType);
+        if (typeRelay == null) {
+            SerializedBatchRelay<Object> created = SerializedBatchRelay.wrap(relayFactory.create());
+            typeRelay = typeRelays.putIfAbsent(eventType, created);
+            if (typeRelay == null) {
+                typeRelay = created;
+            }
+        }
+        return typeRelay;
+    }
+
+}
@@ -4,6 +4,7 @@ import com.jakewharton.rxrelay2.BehaviorRelay;
 
 /**
  * 先发送事件后订阅，只能接收到最近的一个事件，后面发送的都能接收
+ * <p>最近的 {@link PooledEvent} 持有一个引用，下一个事件到达后释放</p>
  *  http://reactivex.io/RxJava/2.x/javadoc/io/reactivex/subjects/BehaviorSubject.html
  */
 
@@ -31,6 +32,6 @@ public class BehaviorBus extends BaseBus {
     }
 
     public BehaviorBus(BehaviorRelay<Object> behaviorRelay) {
-        super(behaviorRelay);
+        super(new RetainingRelay(behaviorRelay));
     }
 }
@@ -0,0 +1,101 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * bus 的运行统计：每种事件的 post 次数，每个订阅方法的送达延迟、执行耗时和排队个数，以及慢订阅者回调
+ * <p>通过 {@link BaseBus#setMetrics(BusMetrics)} 开启，没有设置时 post 只多一次 null 判断。
+ * 订阅方法的统计在注册时决定，需要在 register 之前设置。</p>
+ */
+public final class BusMetrics {
+
+    /**
+     * 订阅方法执行超过阈值时回调，在订阅方法所在的线程上调用
+     */
+    public interface SlowSubscriberListener {
+        void onSlowSubscriber(SubscriberMetrics subscriber, Object event, long invocationNanos);
+    }
+
+    private final ConcurrentMap<Class<?>, AtomicLong> postCounts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SubscriberMetrics> subscribers = new ConcurrentHashMap<>();
+    private final long slowThresholdNanos;
+    private final SlowSubscriberListener slowSubscriberListener;
+
+    public BusMetrics() {
+        this.slowThresholdNanos = Long.MAX_VALUE;
+        this.slowSubscriberListener = null;
+    }
+
+    /**
+     * @param slowThreshold 订阅方法执行超过该时间时回调 {@code listener}，例如主线程的一帧 16ms
+     */
+    public BusMetrics(long slowThreshold, @NonNull TimeUnit unit, @NonNull SlowSubscriberListener listener) {
+        ObjectHelper.requireNonNull(unit, "unit == null");
+        ObjectHelper.requireNonNull(listener, "listener == null");
+        this.slowThresholdNanos = unit.toNanos(slowThreshold);
+        this.slowSubscriberListener = listener;
+    }
+
+    public long getPostCount(Class<?> eventType) {
+        AtomicLong count = postCounts.get(eventType);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @return 每种事件（按事件的实际类型）post 的次数快照
+     */
+    public Map<Class<?>, Long> getPostCounts() {
+        Map<Class<?>, Long> counts = new HashMap<>();
+        for (Map.Entry<Class<?>, AtomicLong> entry : postCounts.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    /**
+     * @return 订阅方法名到统计的映射，同一个类的多个实例合并统计
+     */
+    public Map<String, SubscriberMetrics> getSubscriberMetrics() {
+        return Collections.unmodifiableMap(subscribers);
+    }
+
+    void onPost(Class<?> eventType) {
+        AtomicLong count = postCounts.get(eventType);
+        if (count == null) {
+            AtomicLong created = new AtomicLong();
+            count = postCounts.putIfAbsent(eventType, created);
+            if (count == null) {
+                count = created;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    SubscriberMetrics subscriber(String name) {
+        SubscriberMetrics metrics = subscribers.get(name);
+        if (metrics == null) {
+            SubscriberMetrics created = new SubscriberMetrics(name);
+            metrics = subscribers.putIfAbsent(name, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+
+    void onInvoked(SubscriberMetrics subscriber, Object event, long nanos) {
+        subscriber.onInvoked(nanos);
+        if (nanos >= slowThresholdNanos) {
+            slowSubscriberListener.onSlowSubscriber(subscriber, event, nanos);
+        }
+    }
+}
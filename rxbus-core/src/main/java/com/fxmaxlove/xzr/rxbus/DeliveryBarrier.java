@@ -0,0 +1,32 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.subjects.CompletableSubject;
+
+/**
+ * {@link BaseBus#postAndAwait(Object)} 在事件之后发送的标记，与事件走同一条路径，不会送到订阅者
+ * <p>每经过一个订阅者的队列计数一次，所有订阅者都处理完排在它之前的事件后完成</p>
+ */
+final class DeliveryBarrier {
+
+    /** 标记跟随的事件，按它选择分片、类型和异步分发线程 */
+    final Object event;
+    final CompletableSubject completion = CompletableSubject.create();
+    /** 分发时持有一个，发送到所有 relay 之前不会完成 */
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    DeliveryBarrier(Object event) {
+        this.event = event;
+    }
+
+    void expect() {
+        pending.incrementAndGet();
+    }
+
+    void arrive() {
+        if (pending.decrementAndGet() == 0) {
+            completion.onComplete();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.Nullable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.Consumer;
+import io.reactivex.internal.schedulers.TrampolineScheduler;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * 订阅方法的接收端，代替 {@code observeOn(scheduler).subscribe(onNext, onError)}
+ * <p>每个订阅方法一个，注册后一直复用：切换线程时事件放进自己的环形数组，只在数组满时扩容，之后不再分配；
+ * 一批连续的事件只调度一次自己（{@link Runnable}）。{@code Schedulers.trampoline()} 在 post 的线程直接调用。
+ * 开启统计时入队时间保存在并列的 long 数组中，不再为每个事件创建包装对象。</p>
+ * <p>调度本身（{@link Scheduler.Worker#schedule(Runnable)}）的分配取决于 {@link Scheduler} 的实现，
+ * 接收线程忙、队列不为空时 post 不会调度</p>
+ * <p>排队的 {@link PooledEvent} 持有一个引用，送达后或者取消订阅时释放</p>
+ */
+final class DeliveryQueue implements Observer<Object>, Disposable, Runnable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    @Nullable
+    private final Scheduler.Worker worker;
+    @Nullable
+    private final SubscriberMetrics metrics;
+    private final Consumer<Object> onNext;
+    private final Consumer<Throwable> onError;
+
+    /** 以下 guarded by this */
+    private Object[] events;
+    private long[] stamps;
+    private int head;
+    private int size;
+    private boolean scheduled;
+
+    private volatile Disposable upstream;
+    private volatile boolean disposed;
+
+    DeliveryQueue(Scheduler scheduler, @Nullable SubscriberMetrics metrics,
+                  Consumer<Object> onNext, Consumer<Throwable> onError) {
+        this.worker = scheduler instanceof TrampolineScheduler ? null : scheduler.createWorker();
+        this.metrics = metrics;
+        this.onNext = onNext;
+        this.onError = onError;
+    }
+
+    @Override
+    public void onSubscribe(Disposable d) {
+        upstream = d;
+        if (disposed) {
+            d.dispose();
+        }
+    }
+
+    @Override
+    public void onNext(Object event) {
+        long now = metrics == null ? 0 : System.nanoTime();
+        if (worker == null) {
+            if (metrics != null) {
+                metrics.onEnqueue();
+            }
+            deliver(event, now);
+            return;
+        }
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            if (metrics != null) {
+                metrics.onEnqueue();
+            }
+            if (events == null) {
+                events = new Object[INITIAL_CAPACITY];
+                stamps = metrics == null ? null : new long[INITIAL_CAPACITY];
+            } else if (size == events.length) {
+                grow();
+            }
+            PooledEvent.retainIfPooled(event);
+            int index = (head + size) & (events.length - 1);
+            events[index] = event;
+            if (stamps != null) {
+                stamps[index] = now;
+            }
+            size++;
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        worker.schedule(this);
+    }
+
+    private void grow() {
+        Object[] grownEvents = new Object[size << 1];
+        long[] grownStamps = stamps == null ? null : new long[size << 1];
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) & (size - 1);
+            grownEvents[i] = events[index];
+            if (grownStamps != null) {
+                grownStamps[i] = stamps[index];
+            }
+        }
+        events = grownEvents;
+        stamps = grownStamps;
+        head = 0;
+    }
+
+    @Override
+    public void run() {
+        for (;;) {
+            Object event;
+            long stamp;
+            synchronized (this) {
+                if (size == 0 || disposed) {
+                    scheduled = false;
+                    clear();
+                    return;
+                }
+                event = events[head];
+                stamp = stamps == null ? 0 : stamps[head];
+                events[head] = null;
+                head = (head + 1) & (events.length - 1);
+                size--;
+            }
+            deliver(event, stamp);
+            PooledEvent.releaseIfPooled(event);
+        }
+    }
+
+    /**
+     * 丢弃排队的事件，并从统计的排队个数中减去，guarded by this
+     */
+    private void clear() {
+        if (size > 0 && metrics != null) {
+            metrics.onDropped(size);
+        }
+        for (; size > 0; size--) {
+            PooledEvent.releaseIfPooled(events[head]);
+            events[head] = null;
+            head = (head + 1) & (events.length - 1);
+        }
+    }
+
+    private void deliver(Object event, long postNanos) {
+        if (disposed) {
+            if (metrics != null) {
+                metrics.onDropped(1);
+            }
+            return;
+        }
+        if (metrics != null) {
+            metrics.onDequeue(postNanos, System.nanoTime());
+        }
+        try {
+            onNext.accept(event);
+        } catch (Throwable e) {
+            Exceptions.throwIfFatal(e);
+            dispose();
+            onError(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        try {
+            onError.accept(e);
+        } catch (Throwable inner) {
+            Exceptions.throwIfFatal(inner);
+            RxJavaPlugins.onError(inner);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        // relay 不会结束
+    }
+
+    @Override
+    public void dispose() {
+        if (!disposed) {
+            disposed = true;
+            Disposable d = upstream;
+            if (d != null) {
+                d.dispose();
+            }
+            if (worker != null) {
+                worker.dispose();
+                synchronized (this) {
+                    clear();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+}
@@ -0,0 +1,104 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.annotations.Nullable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 不装箱的 double 事件通道，通过 {@link BaseBus#doubleChannel(String)} 按名字获取
+ * <p>{@link #post(double)} 和在 post 线程接收的监听者不分配内存；切换线程接收时值进入监听者自己的 double 队列，
+ * 一批连续的值只调度一次。参数为 double 并且设置了 {@code RxSubscribe#channel()} 的订阅方法注册到同名的通道。</p>
+ */
+public final class DoubleChannel extends PrimitiveChannel {
+
+    public interface Listener {
+        void onValue(double value) throws Exception;
+    }
+
+    DoubleChannel(String name) {
+        super(name);
+    }
+
+    public void post(double value) {
+        Subscription[] subscriptions = subscriptions();
+        if (subscriptions.length == 0) {
+            return;
+        }
+        synchronized (this) {
+            for (Subscription subscription : subscriptions) {
+                ((DoubleSubscription) subscription).onValue(value);
+            }
+        }
+    }
+
+    /**
+     * 在 post 的线程接收
+     */
+    public Disposable subscribe(@NonNull Listener listener) {
+        return subscribe(listener, null);
+    }
+
+    /**
+     * @param scheduler 为 null 时在 post 的线程接收
+     */
+    public Disposable subscribe(@NonNull Listener listener, @Nullable Scheduler scheduler) {
+        ObjectHelper.requireNonNull(listener, "listener == null");
+        return add(new DoubleSubscription(this, listener, scheduler));
+    }
+
+    private static final class DoubleSubscription extends Subscription {
+        private final Listener listener;
+
+        DoubleSubscription(DoubleChannel channel, Listener listener, @Nullable Scheduler scheduler) {
+            super(channel, scheduler);
+            this.listener = listener;
+        }
+
+        void onValue(double value) {
+            if (worker == null) {
+                deliver(value);
+                return;
+            }
+            synchronized (this) {
+                int index = offer();
+                ((double[]) queue)[index] = value;
+                if (!markScheduled()) {
+                    return;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        Object newQueue(int capacity) {
+            return new double[capacity];
+        }
+
+        @Override
+        boolean deliverNext() {
+            double value;
+            synchronized (this) {
+                int index = poll();
+                if (index < 0) {
+                    return true;
+                }
+                value = ((double[]) queue)[index];
+            }
+            deliver(value);
+            return false;
+        }
+
+        private void deliver(double value) {
+            if (isDisposed()) {
+                return;
+            }
+            try {
+                listener.onValue(value);
+            } catch (Throwable e) {
+                onListenerError(e);
+            }
+        }
+    }
+}
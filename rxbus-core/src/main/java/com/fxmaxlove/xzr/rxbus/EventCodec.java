@@ -0,0 +1,19 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 事件的二进制编码，{@link ProcessBridge} 按事件类注册，两个进程要使用相同的编码
+ */
+public interface EventCodec<T> {
+
+    /**
+     * 从 {@code buffer} 的当前位置写入，写满时抛出 {@link java.nio.BufferOverflowException}，该事件不会发送
+     */
+    void encode(T event, ByteBuffer buffer) throws Exception;
+
+    /**
+     * 从 {@code buffer} 的当前位置读取，{@code buffer} 的 limit 是该事件编码的结尾
+     */
+    T decode(ByteBuffer buffer) throws Exception;
+}
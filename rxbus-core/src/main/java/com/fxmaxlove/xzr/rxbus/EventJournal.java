@@ -0,0 +1,253 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.util.RxBusLog;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 记录 bus 上 post 的事件，用 {@link JournalReplayer} 回放
+ * <p>通过 {@link BaseBus#setJournal(EventJournal)} 开启，注册了 {@link EventCodec} 的事件类（按 {@code event.getClass()} 匹配）
+ * 在 post 的线程编码到直接内存缓冲区，记录事件类、相对开始记录的时间和编码后的内容；缓冲区满时交给后台线程写入文件，
+ * 换另一个缓冲区继续记录。post 时除了编码器自己的分配外不分配内存。</p>
+ * <p>文件中第一次出现的事件类先写一条定义记录保存类名，回放时按类名找到编码器。</p>
+ */
+public final class EventJournal implements Closeable {
+
+    static final int MAGIC = 0x52784a6e;
+    static final int VERSION = 1;
+    /** magic、version、开始记录的时间 {@link System#currentTimeMillis()} */
+    static final int FILE_HEADER_SIZE = 16;
+    /** length、typeId、time */
+    static final int RECORD_HEADER_SIZE = 16;
+    /** 定义记录的 typeId，内容是类型 id 和类名 */
+    static final int DEFINE = -1;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final FileOutputStream out;
+    private final FileChannel channel;
+    private final Map<Class<?>, Registration> byType;
+    private final long startNanos = System.nanoTime();
+    private final ExecutorService flusher;
+    /** 已经写过定义记录的类型，按类型 id；同一个 Builder 创建的日志共享 {@link Registration}，所以每个日志单独记录 */
+    private final boolean[] defined;
+    /** 以上和以下 guarded by this */
+    private ByteBuffer active;
+    private ByteBuffer standby;
+    private Future<?> flushing;
+    private boolean closed;
+
+    private EventJournal(Builder builder) throws IOException {
+        this.byType = new HashMap<>(builder.registrations);
+        this.defined = new boolean[byType.size()];
+        this.out = new FileOutputStream(builder.file);
+        this.channel = out.getChannel();
+        this.active = ByteBuffer.allocateDirect(builder.bufferSize);
+        this.standby = ByteBuffer.allocateDirect(builder.bufferSize);
+        active.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+        this.flusher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "rxbus-journal");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 在 post 的线程调用
+     */
+    @SuppressWarnings("unchecked")
+    void record(Object event) {
+        Registration registration = byType.get(event.getClass());
+        if (registration == null) {
+            return;
+        }
+        long time = System.nanoTime() - startNanos;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (!defined[registration.id]) {
+                define(registration);
+            }
+            for (int attempt = 0; ; attempt++) {
+                ByteBuffer buffer = active;
+                int start = buffer.position();
+                if (buffer.remaining() > RECORD_HEADER_SIZE) {
+                    buffer.position(start + RECORD_HEADER_SIZE);
+                    try {
+                        ((EventCodec<Object>) registration.codec).encode(event, buffer);
+                        buffer.putInt(start, buffer.position() - start);
+                        buffer.putInt(start + 4, registration.id);
+                        buffer.putLong(start + 8, time);
+                        return;
+                    } catch (BufferOverflowException e) {
+                        buffer.position(start);
+                    } catch (Exception e) {
+                        buffer.position(start);
+                        RxBusLog.e("rxbus--journal", "encode failed: " + event, e);
+                        return;
+                    }
+                }
+                if (attempt > 0 || start == 0) {
+                    RxBusLog.e("rxbus--journal", "event larger than " + buffer.capacity() + " bytes not recorded: " + event, null);
+                    return;
+                }
+                swap();
+            }
+        }
+    }
+
+    private void define(Registration registration) {
+        byte[] name = registration.eventType.getName().getBytes(UTF_8);
+        int length = RECORD_HEADER_SIZE + 4 + name.length;
+        if (active.remaining() < length) {
+            swap();
+        }
+        active.putInt(length).putInt(DEFINE).putLong(0).putInt(registration.id).put(name);
+        defined[registration.id] = true;
+    }
+
+    /**
+     * 把已经记录的事件写入文件
+     */
+    public synchronized void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        swap();
+        awaitFlush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+            channel.force(false);
+        } finally {
+            closed = true;
+            flusher.shutdown();
+            out.close();
+        }
+    }
+
+    /**
+     * 等待上一个缓冲区写完后交换，写入在后台线程进行
+     */
+    private void swap() {
+        try {
+            awaitFlush();
+        } catch (IOException e) {
+            RxBusLog.e("rxbus--journal", "write failed", e);
+        }
+        final ByteBuffer full = active;
+        active = standby;
+        standby = full;
+        full.flip();
+        flushing = flusher.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                try {
+                    while (full.hasRemaining()) {
+                        channel.write(full);
+                    }
+                } finally {
+                    full.clear();
+                }
+                return null;
+            }
+        });
+    }
+
+    private void awaitFlush() throws IOException {
+        Future<?> f = flushing;
+        if (f == null) {
+            return;
+        }
+        flushing = null;
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private static final class Registration {
+        /** 按注册顺序从 0 开始 */
+        final int id;
+        final Class<?> eventType;
+        final EventCodec<?> codec;
+
+        Registration(int id, Class<?> eventType, EventCodec<?> codec) {
+            this.id = id;
+            this.eventType = eventType;
+            this.codec = codec;
+        }
+    }
+
+    public static final class Builder {
+        private final File file;
+        private int bufferSize = 256 * 1024;
+        private final Map<Class<?>, Registration> registrations = new HashMap<>();
+
+        /**
+         * @param file 已经存在时覆盖
+         */
+        public Builder(@NonNull File file) {
+            this.file = ObjectHelper.requireNonNull(file, "file == null");
+        }
+
+        /**
+         * 每个缓冲区的字节数，默认 256KB，单个事件的记录不能超过它
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < 1024) {
+                throw new IllegalArgumentException("bufferSize >= 1024 required but it was " + bufferSize);
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * 记录该事件类的事件
+         */
+        public <T> Builder codec(@NonNull Class<T> eventType, @NonNull EventCodec<T> codec) {
+            ObjectHelper.requireNonNull(eventType, "eventType == null");
+            ObjectHelper.requireNonNull(codec, "codec == null");
+            Registration old = registrations.get(eventType);
+            registrations.put(eventType, new Registration(old == null ? registrations.size() : old.id, eventType, codec));
+            return this;
+        }
+
+        /**
+         * 创建文件，之后用 {@link BaseBus#setJournal(EventJournal)} 开始记录
+         */
+        public EventJournal build() throws IOException {
+            return new EventJournal(this);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 一种 {@link PooledEvent} 的对象池，通常通过 {@link BaseBus#pool(Class, Factory)} 获取
+ * <pre>
+ * EventPool&lt;PriceEvent&gt; pool = bus.pool(PriceEvent.class, PriceEvent.FACTORY);
+ * PriceEvent event = pool.acquire();
+ * event.price = price;
+ * bus.post(event);
+ * </pre>
+ * <p>空闲的事件最多保留 {@link #maxIdle} 个，超出的交给 GC。池空时由 {@link Factory} 创建新的事件</p>
+ */
+public final class EventPool<T extends PooledEvent> {
+
+    public static final int DEFAULT_MAX_IDLE = 256;
+
+    private static volatile boolean debug;
+
+    public interface Factory<T extends PooledEvent> {
+        @NonNull
+        T create();
+    }
+
+    private final Factory<T> factory;
+    private final int maxIdle;
+    /** 以下 guarded by this */
+    private final PooledEvent[] idle;
+    private int size;
+    private long created;
+
+    public EventPool(@NonNull Factory<T> factory) {
+        this(factory, DEFAULT_MAX_IDLE);
+    }
+
+    public EventPool(@NonNull Factory<T> factory, int maxIdle) {
+        this.factory = ObjectHelper.requireNonNull(factory, "factory == null");
+        this.maxIdle = ObjectHelper.verifyPositive(maxIdle, "maxIdle");
+        this.idle = new PooledEvent[maxIdle];
+    }
+
+    /**
+     * 调试模式：释放的事件不再回到池中，之后 {@link PooledEvent#checkAlive()}、retain、release
+     * 和 post 都会抛出 IllegalStateException，并带上释放位置的调用栈
+     */
+    public static void setDebug(boolean enabled) {
+        debug = enabled;
+    }
+
+    public static boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * 取出一个空闲的事件或者创建新的，计数为 1
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        synchronized (this) {
+            if (size > 0) {
+                PooledEvent event = idle[--size];
+                idle[size] = null;
+                event.acquired();
+                return (T) event;
+            }
+            created++;
+        }
+        T event = ObjectHelper.requireNonNull(factory.create(), "factory returned null");
+        event.pool = this;
+        return event;
+    }
+
+    /**
+     * 空闲的事件个数
+     */
+    public synchronized int idleCount() {
+        return size;
+    }
+
+    /**
+     * 由 {@link Factory} 创建的事件个数，稳定之后不再增长说明事件都回到了池中
+     */
+    public synchronized long createdCount() {
+        return created;
+    }
+
+    void recycle(PooledEvent event) {
+        if (debug) {
+            return;
+        }
+        synchronized (this) {
+            if (size < maxIdle) {
+                idle[size++] = event;
+            }
+        }
+    }
+}
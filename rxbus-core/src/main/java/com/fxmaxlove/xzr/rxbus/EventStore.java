@@ -0,0 +1,419 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 粘滞事件和 {@link ReplayBus} 历史事件的存储
+ * <p>每个事件类一个 {@link Bucket}，按该类的 {@link StickyPolicy} 裁剪，不同类型的 post 互不阻塞；
+ * 同一类型的写入加锁，读取只读取 volatile 快照，不加锁。</p>
+ * <p>写入时可以带一个递增的序号，{@link #history(Class, long)} 按序号合并多个类型的事件</p>
+ * <p>保存的 {@link PooledEvent} 持有一个引用，被裁剪、过期或者移除时释放。{@link PooledEvent} 子类的 {@link Bucket}
+ * 读取时加锁，在锁内为快照中的每个事件 retain，读者用完之后释放；其它类型读取时不加锁</p>
+ */
+final class EventStore {
+
+    private final ConcurrentMap<Class<?>, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, StickyPolicy> policies = new ConcurrentHashMap<>();
+    private final StickyPolicy defaultPolicy;
+
+    EventStore(StickyPolicy defaultPolicy, Map<Class<?>, StickyPolicy> policies) {
+        this.defaultPolicy = defaultPolicy;
+        this.policies.putAll(policies);
+    }
+
+    StickyPolicy policyOf(Class<?> eventType) {
+        StickyPolicy policy = policies.get(eventType);
+        return policy == null ? defaultPolicy : policy;
+    }
+
+    /**
+     * 未配置过的类型才会生效，已经存在的事件在下一次写入时按新策略裁剪
+     */
+    void setPolicyIfAbsent(Class<?> eventType, StickyPolicy policy) {
+        if (policies.putIfAbsent(eventType, policy) == null) {
+            Bucket bucket = buckets.get(eventType);
+            if (bucket != null) {
+                bucket.policy = policy;
+            }
+        }
+    }
+
+    void add(Object event) {
+        add(event, 0);
+    }
+
+    /**
+     * 添加 {@code ageMillis} 之前发送的事件，同一类型要按发送顺序添加，并且早于该类型新发送的事件
+     */
+    void restore(Object event, long ageMillis) {
+        bucket(event.getClass()).add(event, 0, now() - ageMillis);
+        // 恢复的事件只被这里引用，接管创建时的引用
+        PooledEvent.releaseIfPooled(event);
+    }
+
+    /**
+     * @param seq 同一类型的序号必须递增
+     */
+    void add(Object event, long seq) {
+        bucket(event.getClass()).add(event, seq, now());
+    }
+
+    private Bucket bucket(Class<?> eventType) {
+        Bucket bucket = buckets.get(eventType);
+        if (bucket == null) {
+            Bucket created = new Bucket(policyOf(eventType), PooledEvent.class.isAssignableFrom(eventType));
+            bucket = buckets.putIfAbsent(eventType, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * @return 未过期事件的只读快照，没有事件时返回 null；其中的 {@link PooledEvent} 已经 retain，调用者用完之后释放
+     */
+    @SuppressWarnings("unchecked")
+    <T> List<T> get(Class<T> eventType) {
+        Bucket bucket = buckets.get(eventType);
+        if (bucket == null) {
+            return null;
+        }
+        Snapshot snapshot = bucket.read(now(), Long.MAX_VALUE);
+        if (snapshot.from == snapshot.to) {
+            return Collections.emptyList();
+        }
+        return (List<T>) new SnapshotList(snapshot.events, snapshot.from, snapshot.to);
+    }
+
+    /**
+     * {@code eventType} 及其子类序号不大于 {@code maxSeq} 的未过期事件，按序号排序
+     * <p>只读取这些类型自己的快照，不会遍历其它类型的事件。其中的 {@link PooledEvent} 已经 retain，调用者用完之后释放</p>
+     */
+    List<Object> history(Class<?> eventType, long maxSeq) {
+        long now = now();
+        Snapshot single = null;
+        int singleTo = 0;
+        List<Snapshot> snapshots = null;
+        List<Integer> ends = null;
+        for (Map.Entry<Class<?>, Bucket> entry : buckets.entrySet()) {
+            if (!eventType.isAssignableFrom(entry.getKey())) {
+                continue;
+            }
+            Snapshot snapshot = entry.getValue().read(now, maxSeq);
+            int to = snapshot.to;
+            if (to == snapshot.from) {
+                continue;
+            }
+            if (single == null) {
+                single = snapshot;
+                singleTo = to;
+            } else {
+                if (snapshots == null) {
+                    snapshots = new ArrayList<>();
+                    ends = new ArrayList<>();
+                    snapshots.add(single);
+                    ends.add(singleTo);
+                }
+                snapshots.add(snapshot);
+                ends.add(to);
+            }
+        }
+        if (single == null) {
+            return Collections.emptyList();
+        }
+        if (snapshots == null) {
+            return new SnapshotList(single.events, single.from, singleTo);
+        }
+        return merge(snapshots, ends);
+    }
+
+    void remove(Object event) {
+        Bucket bucket = buckets.get(event.getClass());
+        if (bucket != null) {
+            bucket.remove(event);
+        }
+    }
+
+    void remove(Class<?> eventType) {
+        Bucket bucket = buckets.remove(eventType);
+        if (bucket != null) {
+            bucket.clear();
+        }
+    }
+
+    void clear() {
+        for (Class<?> eventType : buckets.keySet()) {
+            remove(eventType);
+        }
+    }
+
+    private static List<Object> merge(List<Snapshot> snapshots, List<Integer> ends) {
+        int count = snapshots.size();
+        int[] positions = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            positions[i] = snapshots.get(i).from;
+            size += ends.get(i) - positions[i];
+        }
+        List<Object> merged = new ArrayList<>(size);
+        for (int n = 0; n < size; n++) {
+            int min = -1;
+            long minSeq = Long.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                if (positions[i] < ends.get(i)) {
+                    long seq = snapshots.get(i).seqs[positions[i]];
+                    if (seq < minSeq) {
+                        minSeq = seq;
+                        min = i;
+                    }
+                }
+            }
+            merged.add(snapshots.get(min).events[positions[min]++]);
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * 只追加的数组，读者只会看到 [from, to) 范围，写者只写 to 之后的位置，
+     * 数组满了、删除事件或者被移除的事件比保留的多时复制到新数组
+     */
+    private static final class Bucket {
+        volatile StickyPolicy policy;
+        private volatile Snapshot snapshot = Snapshot.EMPTY;
+        /** 事件类是 {@link PooledEvent} 的子类 */
+        private final boolean pooled;
+
+        Bucket(StickyPolicy policy, boolean pooled) {
+            this.policy = policy;
+            this.pooled = pooled;
+        }
+
+        synchronized void add(Object event, long seq, long now) {
+            StickyPolicy policy = this.policy;
+            long size = policy.sizer == null ? 0 : policy.sizer.sizeOf(event);
+            PooledEvent.retainIfPooled(event);
+            Snapshot current = snapshot;
+            int from = current.from;
+            int to = current.to;
+            long bytes = current.bytes;
+            if (policy.ttlMillis > 0) {
+                while (from < to && current.times[from] + policy.ttlMillis <= now) {
+                    bytes -= current.evict(from++);
+                }
+            }
+            if (policy.maxCount > 0) {
+                while (to - from >= policy.maxCount) {
+                    bytes -= current.evict(from++);
+                }
+            }
+            if (policy.maxBytes > 0) {
+                while (from < to && bytes + size > policy.maxBytes) {
+                    bytes -= current.evict(from++);
+                }
+            }
+            if (to == current.events.length || shouldCompact(from, to)) {
+                current = current.copy(from, to, policy.maxCount > 0 ? policy.maxCount * 2 : 0);
+                to -= from;
+                from = 0;
+            }
+            current.events[to] = event;
+            current.times[to] = now;
+            current.seqs[to] = seq;
+            current.sizes[to] = size;
+            snapshot = new Snapshot(current, from, to + 1, bytes + size);
+        }
+
+        synchronized void remove(Object event) {
+            Snapshot current = snapshot;
+            for (int i = current.from; i < current.to; i++) {
+                Object e = current.events[i];
+                if (e == event || e.equals(event)) {
+                    Snapshot before = current.copy(current.from, i, current.to - current.from);
+                    int size = i - current.from;
+                    for (int j = i + 1; j < current.to; j++, size++) {
+                        before.events[size] = current.events[j];
+                        before.times[size] = current.times[j];
+                        before.seqs[size] = current.seqs[j];
+                        before.sizes[size] = current.sizes[j];
+                    }
+                    snapshot = new Snapshot(before, 0, size, current.bytes - current.sizes[i]);
+                    PooledEvent.releaseIfPooled(e);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 读取时发现过期的事件，加锁移除，否则不加锁
+         */
+        Snapshot snapshot(long now) {
+            Snapshot current = snapshot;
+            long ttlMillis = policy.ttlMillis;
+            if (ttlMillis > 0 && current.from < current.to && current.times[current.from] + ttlMillis <= now) {
+                return expire(now);
+            }
+            return current;
+        }
+
+        /**
+         * 给读者的快照，只包含序号不大于 {@code maxSeq} 的事件
+         * <p>池化的事件只在持有锁时被裁剪和释放，所以在锁内 retain 的事件都还没有回到池中</p>
+         */
+        Snapshot read(long now, long maxSeq) {
+            if (!pooled) {
+                Snapshot current = snapshot(now);
+                return new Snapshot(current, current.from, current.upTo(maxSeq), current.bytes);
+            }
+            synchronized (this) {
+                Snapshot current = snapshot(now);
+                int to = current.upTo(maxSeq);
+                for (int i = current.from; i < to; i++) {
+                    ((PooledEvent) current.events[i]).retain();
+                }
+                return new Snapshot(current, current.from, to, current.bytes);
+            }
+        }
+
+        private synchronized Snapshot expire(long now) {
+            Snapshot current = snapshot;
+            long ttlMillis = policy.ttlMillis;
+            int from = current.from;
+            long bytes = current.bytes;
+            while (from < current.to && current.times[from] + ttlMillis <= now) {
+                bytes -= current.evict(from++);
+            }
+            if (shouldCompact(from, current.to)) {
+                snapshot = new Snapshot(current.copy(from, current.to, 0), 0, current.to - from, bytes);
+            } else {
+                snapshot = new Snapshot(current, from, current.to, bytes);
+            }
+            return snapshot;
+        }
+
+        /**
+         * 从 {@link #buckets} 中移除之后释放所有事件
+         */
+        synchronized void clear() {
+            Snapshot current = snapshot;
+            snapshot = Snapshot.EMPTY;
+            for (int i = current.from; i < current.to; i++) {
+                current.evict(i);
+            }
+        }
+
+        /**
+         * 被移除的事件仍然被数组引用，比保留的事件多时复制，复制的总开销与写入次数成正比
+         */
+        private static boolean shouldCompact(int from, int to) {
+            return from >= 8 && from > to - from;
+        }
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new Object[0], new long[0], new long[0], new long[0], 0, 0, 0);
+
+        final Object[] events;
+        final long[] times;
+        final long[] seqs;
+        /** 每个事件估算的字节数，未限制字节数时为 0 */
+        final long[] sizes;
+        final int from;
+        final int to;
+        /** [from, to) 的字节数之和，只由写者使用，{@link Bucket#read(long, long)} 的快照中不准确 */
+        final long bytes;
+
+        Snapshot(Object[] events, long[] times, long[] seqs, long[] sizes, int from, int to, long bytes) {
+            this.events = events;
+            this.times = times;
+            this.seqs = seqs;
+            this.sizes = sizes;
+            this.from = from;
+            this.to = to;
+            this.bytes = bytes;
+        }
+
+        Snapshot(Snapshot arrays, int from, int to, long bytes) {
+            this(arrays.events, arrays.times, arrays.seqs, arrays.sizes, from, to, bytes);
+        }
+
+        /**
+         * 释放 {@code index} 位置的事件，只由写者在移出 [from, to) 范围时调用
+         * @return 该事件的字节数
+         */
+        long evict(int index) {
+            PooledEvent.releaseIfPooled(events[index]);
+            return sizes[index];
+        }
+
+        /**
+         * [from, to) 复制到新数组的开头，新数组的长度至少为 {@code capacity}
+         */
+        Snapshot copy(int from, int to, int capacity) {
+            int size = to - from;
+            int length = Math.max(capacity, Math.max(8, size * 2));
+            Object[] newEvents = new Object[length];
+            long[] newTimes = new long[length];
+            long[] newSeqs = new long[length];
+            long[] newSizes = new long[length];
+            System.arraycopy(events, from, newEvents, 0, size);
+            System.arraycopy(times, from, newTimes, 0, size);
+            System.arraycopy(seqs, from, newSeqs, 0, size);
+            System.arraycopy(sizes, from, newSizes, 0, size);
+            return new Snapshot(newEvents, newTimes, newSeqs, newSizes, 0, size, 0);
+        }
+
+        /**
+         * 序号不大于 {@code maxSeq} 的结束位置
+         */
+        int upTo(long maxSeq) {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (seqs[mid] <= maxSeq) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class SnapshotList extends AbstractList<Object> {
+        private final Object[] events;
+        private final int from;
+        private final int size;
+
+        SnapshotList(Object[] events, int from, int to) {
+            this.events = events;
+            this.from = from;
+            this.size = to - from;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return events[from + index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
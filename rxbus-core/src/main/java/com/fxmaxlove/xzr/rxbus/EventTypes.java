@@ -0,0 +1,51 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 事件类型的继承关系缓存：事件类本身、所有父类以及所有接口
+ */
+final class EventTypes {
+
+    private static final Map<Class<?>, Class<?>[]> HIERARCHY = new ConcurrentHashMap<>();
+
+    private EventTypes() {
+    }
+
+    /**
+     * @return 可以接收 {@code eventClass} 事件的所有订阅类型，第一个元素是 {@code eventClass} 本身
+     */
+    static Class<?>[] of(Class<?> eventClass) {
+        Class<?>[] types = HIERARCHY.get(eventClass);
+        if (types == null) {
+            types = lookup(eventClass);
+            HIERARCHY.put(eventClass, types);
+        }
+        return types;
+    }
+
+    private static Class<?>[] lookup(Class<?> eventClass) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        List<Class<?>> interfaces = new ArrayList<>();
+        for (Class<?> cls = eventClass; cls != null; cls = cls.getSuperclass()) {
+            types.add(cls);
+            addInterfaces(interfaces, cls.getInterfaces());
+        }
+        types.addAll(interfaces);
+        return types.toArray(new Class<?>[types.size()]);
+    }
+
+    private static void addInterfaces(List<Class<?>> result, Class<?>[] interfaces) {
+        for (Class<?> anInterface : interfaces) {
+            if (!result.contains(anInterface)) {
+                result.add(anInterface);
+                addInterfaces(result, anInterface.getInterfaces());
+            }
+        }
+    }
+}
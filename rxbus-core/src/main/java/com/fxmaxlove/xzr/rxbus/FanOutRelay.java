@@ -0,0 +1,204 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.jakewharton.rxrelay2.Relay;
+
+import java.util.Arrays;
+
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * 并行送达的 {@link Relay}，行为与 {@code PublishRelay} 相同，只是订阅者多时不在 post 的线程逐个调用
+ * <p>每个订阅者有自己的队列，同一时间最多一个线程在调用它，所以每个订阅者收到事件的顺序不变；
+ * 订阅者个数达到 {@link #threshold} 时事件只放进各自的队列，由 {@link #scheduler} 的线程同时送达，
+ * 否则在 post 的线程直接调用空闲的订阅者。</p>
+ * <p>需要 {@link SerializedBatchRelay} 保证 {@link #accept(Object)} 串行调用。
+ * 放进队列的 {@link PooledEvent} 持有一个引用，该订阅者处理完后释放</p>
+ */
+final class FanOutRelay<T> extends Relay<T> {
+
+    private static final Lane[] EMPTY = new Lane[0];
+
+    private final int threshold;
+    private final Scheduler scheduler;
+    private volatile Lane[] lanes = EMPTY;
+
+    FanOutRelay(int threshold, Scheduler scheduler) {
+        this.threshold = threshold;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super T> observer) {
+        Lane lane = new Lane(this, observer);
+        observer.onSubscribe(lane);
+        add(lane);
+        if (lane.isDisposed()) {
+            remove(lane);
+        }
+    }
+
+    @Override
+    public void accept(T value) {
+        if (value == null) {
+            throw new NullPointerException("value == null");
+        }
+        Lane[] current = lanes;
+        boolean parallel = current.length >= threshold;
+        for (Lane lane : current) {
+            lane.offer(value, parallel);
+        }
+    }
+
+    /**
+     * 每个订阅者处理完之前的事件后到达
+     */
+    void barrier(DeliveryBarrier barrier) {
+        for (Lane lane : lanes) {
+            lane.offerBarrier(barrier);
+        }
+    }
+
+    @Override
+    public boolean hasObservers() {
+        return lanes.length != 0;
+    }
+
+    private synchronized void add(Lane lane) {
+        Lane[] current = lanes;
+        Lane[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = lane;
+        lanes = updated;
+    }
+
+    private synchronized void remove(Lane lane) {
+        Lane[] current = lanes;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == lane) {
+                Lane[] updated = new Lane[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                lanes = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 一个订阅者的队列，{@link #busy} 时有线程正在调用它，新的事件排在队列里
+     */
+    private static final class Lane implements Disposable, Runnable {
+        private final FanOutRelay<?> parent;
+        @SuppressWarnings("rawtypes")
+        private final Observer downstream;
+        /** 以下 guarded by this */
+        private Object[] queue;
+        private int head;
+        private int size;
+        private boolean busy;
+        private volatile boolean disposed;
+
+        Lane(FanOutRelay<?> parent, Observer<?> downstream) {
+            this.parent = parent;
+            this.downstream = downstream;
+        }
+
+        void offer(Object value, boolean parallel) {
+            synchronized (this) {
+                if (busy) {
+                    enqueue(value);
+                    return;
+                }
+                busy = true;
+                if (parallel) {
+                    enqueue(value);
+                }
+            }
+            if (parallel) {
+                parent.scheduler.scheduleDirect(this);
+                return;
+            }
+            deliver(value);
+            synchronized (this) {
+                if (size == 0) {
+                    busy = false;
+                    return;
+                }
+            }
+            parent.scheduler.scheduleDirect(this);
+        }
+
+        void offerBarrier(DeliveryBarrier barrier) {
+            synchronized (this) {
+                if (busy) {
+                    barrier.expect();
+                    enqueue(barrier);
+                    return;
+                }
+            }
+            // 空闲时之前的事件都已经处理完
+        }
+
+        @Override
+        public void run() {
+            for (;;) {
+                Object value;
+                synchronized (this) {
+                    if (size == 0) {
+                        busy = false;
+                        return;
+                    }
+                    value = queue[head];
+                    queue[head] = null;
+                    head = (head + 1) & (queue.length - 1);
+                    size--;
+                }
+                if (value instanceof DeliveryBarrier) {
+                    ((DeliveryBarrier) value).arrive();
+                } else {
+                    deliver(value);
+                    PooledEvent.releaseIfPooled(value);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void deliver(Object value) {
+            if (!disposed) {
+                downstream.onNext(value);
+            }
+        }
+
+        private void enqueue(Object value) {
+            if (!(value instanceof DeliveryBarrier)) {
+                PooledEvent.retainIfPooled(value);
+            }
+            if (queue == null) {
+                queue = new Object[16];
+            } else if (size == queue.length) {
+                Object[] grown = new Object[size << 1];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = queue[(head + i) & (size - 1)];
+                }
+                queue = grown;
+                head = 0;
+            }
+            queue[(head + size) & (queue.length - 1)] = value;
+            size++;
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                parent.remove(this);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
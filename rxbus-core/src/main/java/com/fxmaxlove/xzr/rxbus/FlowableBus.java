@@ -0,0 +1,195 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+import com.fxmaxlove.xzr.rxbus.util.OverflowStrategy;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.annotations.Nullable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 支持背压的RxBus，每个订阅者的缓冲区有上限，生产者再快内存也不会无限增长
+ * <p>缓冲区满时按 {@link OverflowStrategy} 丢弃事件，丢弃的个数通过 {@link #getDroppedCount(Class)} 获取。
+ * 注解方式注册的订阅方法可以通过 {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#overflow()}、
+ * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#bufferSize()} 单独配置。</p>
+ * <p>缓冲区中的 {@link PooledEvent} 持有一个引用，缓冲区满时丢弃的事件、取消订阅时还在排队的事件同样释放，
+ * 见 {@link FlowableRetainingBuffer}；池化的事件由缓冲区直接切换线程，不再经过 {@code observeOn} 的队列</p>
+ */
+public class FlowableBus extends RxBus {
+
+    private final int bufferSize;
+    private final OverflowStrategy overflowStrategy;
+    private final ConcurrentMap<Class<?>, AtomicLong> droppedCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 缓冲区大小 {@link Flowable#bufferSize()}，满时丢弃最早的事件
+     */
+    public FlowableBus() {
+        this(Flowable.bufferSize(), OverflowStrategy.DROP_OLDEST);
+    }
+
+    public FlowableBus(int bufferSize, @NonNull OverflowStrategy overflowStrategy) {
+        this(new Builder(), bufferSize, overflowStrategy);
+    }
+
+    /**
+     * @param builder 分发方式、粘滞事件等其它配置
+     */
+    public FlowableBus(@NonNull Builder builder, int bufferSize, @NonNull OverflowStrategy overflowStrategy) {
+        super(builder);
+        ObjectHelper.verifyPositive(bufferSize, "bufferSize");
+        ObjectHelper.requireNonNull(overflowStrategy, "overflowStrategy == null");
+        if (overflowStrategy == OverflowStrategy.DEFAULT) {
+            throw new IllegalArgumentException("overflowStrategy must not be DEFAULT");
+        }
+        this.bufferSize = bufferSize;
+        this.overflowStrategy = overflowStrategy;
+    }
+
+    /**
+     * 某一类型事件的 {@link Flowable}，使用 bus 的缓冲区配置
+     */
+    public <T> Flowable<T> ofFlowableType(Class<T> eventType) {
+        return ofFlowableType(eventType, bufferSize, overflowStrategy);
+    }
+
+    /**
+     * 某一类型事件的 {@link Flowable}
+     * @param bufferSize 缓冲区大小
+     * @param overflowStrategy 缓冲区满时的处理方式
+     */
+    public <T> Flowable<T> ofFlowableType(Class<T> eventType, int bufferSize, OverflowStrategy overflowStrategy) {
+        return bounded(ofType(eventType), eventType, bufferSize, overflowStrategy, null);
+    }
+
+    /**
+     * 某一类型粘滞事件的 {@link Flowable}，粘滞事件超过缓冲区时同样按 {@code overflowStrategy} 处理
+     */
+    public <T> Flowable<T> ofStickyFlowableType(Class<T> eventType, int bufferSize, OverflowStrategy overflowStrategy) {
+        return bounded(ofStickyType(eventType), eventType, bufferSize, overflowStrategy, null);
+    }
+
+    public <T> Flowable<T> toFlowable(Class<T> eventType) {
+        return toFlowable(eventType, EventThread.getScheduler(EventThread.MAIN));
+    }
+
+    public <T> Flowable<T> toFlowable(Class<T> eventType, Scheduler scheduler) {
+        return toFlowable(eventType, scheduler, bufferSize, overflowStrategy);
+    }
+
+    /**
+     * 在 {@code scheduler} 上接收事件，切换线程的队列同样以 {@code bufferSize} 为上限
+     */
+    public <T> Flowable<T> toFlowable(Class<T> eventType, Scheduler scheduler,
+                                      int bufferSize, OverflowStrategy overflowStrategy) {
+        return bounded(ofType(eventType), eventType, bufferSize, overflowStrategy, scheduler);
+    }
+
+    /**
+     * 所有类型被丢弃的事件个数
+     */
+    public long getDroppedCount() {
+        long count = 0;
+        for (AtomicLong dropped : droppedCounts.values()) {
+            count += dropped.get();
+        }
+        return count;
+    }
+
+    /**
+     * 某一订阅类型被丢弃的事件个数，{@link OverflowStrategy#LATEST} 被新事件替换掉的不计入
+     */
+    public long getDroppedCount(Class<?> eventType) {
+        AtomicLong dropped = droppedCounts.get(eventType);
+        return dropped == null ? 0 : dropped.get();
+    }
+
+    /**
+     * 开启统计时只记录订阅方法的执行耗时，缓冲区本身有上限，排队个数不单独统计
+     */
+    @Override
+    Disposable subscribeMethod(SubscriberMethod method, @Nullable SubscriberMetrics metrics,
+                               Consumer<Object> onNext, Consumer<Throwable> onError) {
+        Observable<?> observable = source(method);
+        return bounded(observable, method.eventType, method.bufferSize, method.overflow, method.scheduler())
+                .subscribe(onNext, onError);
+    }
+
+    /**
+     * @param scheduler 不为 null 时在它上面接收；池化的事件由 {@link FlowableRetainingBuffer} 直接切换线程，
+     *                  取消订阅时排队的事件同样释放
+     */
+    private <T> Flowable<T> bounded(Observable<T> observable, Class<?> eventType, int bufferSize,
+                                    OverflowStrategy overflowStrategy, @Nullable Scheduler scheduler) {
+        Flowable<T> flowable = observable.toFlowable(BackpressureStrategy.MISSING);
+        if (!PooledEvent.mayBePooled(eventType)) {
+            Flowable<T> buffered = buffer(flowable, eventType, bufferSize, overflowStrategy);
+            return scheduler == null ? buffered
+                    : buffered.observeOn(scheduler, false, queueSize(bufferSize, overflowStrategy));
+        }
+        return new FlowableRetainingBuffer<>(flowable, bufferSize(bufferSize), overflowStrategy(overflowStrategy),
+                droppedCounter(eventType), scheduler);
+    }
+
+    private <T> Flowable<T> buffer(Flowable<T> flowable, Class<?> eventType,
+                                   int bufferSize, OverflowStrategy overflowStrategy) {
+        Action onOverflow = droppedCounter(eventType);
+        int size = bufferSize(bufferSize);
+        switch (overflowStrategy(overflowStrategy)) {
+            case DROP_LATEST:
+                return flowable.onBackpressureBuffer(size, onOverflow, BackpressureOverflowStrategy.DROP_LATEST);
+            case LATEST:
+                return flowable.onBackpressureLatest();
+            case ERROR:
+                return flowable.onBackpressureBuffer(size, onOverflow, BackpressureOverflowStrategy.ERROR);
+            case DROP_OLDEST:
+            default:
+                return flowable.onBackpressureBuffer(size, onOverflow, BackpressureOverflowStrategy.DROP_OLDEST);
+        }
+    }
+
+    private OverflowStrategy overflowStrategy(OverflowStrategy overflowStrategy) {
+        return overflowStrategy == OverflowStrategy.DEFAULT ? this.overflowStrategy : overflowStrategy;
+    }
+
+    /**
+     * 切换线程的队列大小，{@link OverflowStrategy#LATEST} 时只预取一个，其余的留在 onBackpressureLatest 中被替换
+     */
+    private int queueSize(int bufferSize, OverflowStrategy overflowStrategy) {
+        return overflowStrategy(overflowStrategy) == OverflowStrategy.LATEST ? 1 : bufferSize(bufferSize);
+    }
+
+    private int bufferSize(int bufferSize) {
+        return bufferSize > 0 ? bufferSize : this.bufferSize;
+    }
+
+    private Action droppedCounter(Class<?> eventType) {
+        AtomicLong dropped = droppedCounts.get(eventType);
+        if (dropped == null) {
+            AtomicLong created = new AtomicLong();
+            dropped = droppedCounts.putIfAbsent(eventType, created);
+            if (dropped == null) {
+                dropped = created;
+            }
+        }
+        final AtomicLong counter = dropped;
+        return new Action() {
+            @Override
+            public void run() throws Exception {
+                counter.incrementAndGet();
+            }
+        };
+    }
+}
@@ -0,0 +1,269 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.util.OverflowStrategy;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableSubscriber;
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.Nullable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.functions.Action;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.internal.util.BackpressureHelper;
+
+/**
+ * 持有 {@link PooledEvent} 引用的有界缓冲区，丢弃事件的方式与 {@code onBackpressureBuffer}、
+ * {@code onBackpressureLatest} 相同
+ * <p>缓冲区中的事件持有一个引用，下游处理完、缓冲区满被丢弃或者取消订阅时释放，丢弃的事件也会回到池中。
+ * {@link OverflowStrategy#LATEST} 相当于大小为 1、被替换的事件不计入丢弃个数的缓冲区</p>
+ * <p>指定 {@code scheduler} 时缓冲区同时是切换线程的队列，代替后面的 {@code observeOn}，
+ * 取消订阅时还在排队的事件同样释放</p>
+ */
+final class FlowableRetainingBuffer<T> extends Flowable<T> {
+
+    private final Publisher<T> source;
+    private final int capacity;
+    private final OverflowStrategy strategy;
+    private final Action onOverflow;
+    @Nullable
+    private final Scheduler scheduler;
+
+    /**
+     * @param strategy 不能是 {@link OverflowStrategy#DEFAULT}
+     * @param onOverflow 丢弃事件时调用，{@link OverflowStrategy#ERROR}、{@link OverflowStrategy#LATEST} 不调用
+     * @param scheduler 在它上面发出事件，null 时在上游或者 request 的线程发出
+     */
+    FlowableRetainingBuffer(Publisher<T> source, int capacity, OverflowStrategy strategy, Action onOverflow,
+                            @Nullable Scheduler scheduler) {
+        this.source = source;
+        this.capacity = strategy == OverflowStrategy.LATEST ? 1 : capacity;
+        this.strategy = strategy;
+        this.onOverflow = onOverflow;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super T> s) {
+        Scheduler.Worker worker = scheduler == null ? null : scheduler.createWorker();
+        source.subscribe(new BufferSubscriber<T>(s, capacity, strategy, onOverflow, worker));
+    }
+
+    static final class BufferSubscriber<T> extends AtomicInteger
+            implements FlowableSubscriber<T>, Subscription, Runnable {
+
+        private static final long serialVersionUID = 3240706908776709697L;
+
+        private final Subscriber<? super T> actual;
+        private final int capacity;
+        private final OverflowStrategy strategy;
+        private final Action onOverflow;
+        @Nullable
+        private final Scheduler.Worker worker;
+        private final AtomicLong requested = new AtomicLong();
+        /** guarded by itself */
+        private final ArrayDeque<T> queue = new ArrayDeque<>();
+
+        private Subscription upstream;
+        private volatile boolean done;
+        private Throwable error;
+        private volatile boolean cancelled;
+
+        BufferSubscriber(Subscriber<? super T> actual, int capacity, OverflowStrategy strategy, Action onOverflow,
+                         @Nullable Scheduler.Worker worker) {
+            this.actual = actual;
+            this.capacity = capacity;
+            this.strategy = strategy;
+            this.onOverflow = onOverflow;
+            this.worker = worker;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(upstream, s)) {
+                upstream = s;
+                actual.onSubscribe(this);
+                s.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                return;
+            }
+            PooledEvent.retainIfPooled(t);
+            T dropped = null;
+            boolean overflow = false;
+            synchronized (queue) {
+                if (cancelled) {
+                    dropped = t;
+                } else if (queue.size() < capacity) {
+                    queue.offer(t);
+                } else {
+                    overflow = true;
+                    switch (strategy) {
+                        case DROP_LATEST:
+                            // 与 BackpressureOverflowStrategy.DROP_LATEST 相同，替换缓冲区中最新的一个
+                            dropped = queue.pollLast();
+                            queue.offer(t);
+                            break;
+                        case ERROR:
+                            dropped = t;
+                            break;
+                        default:
+                            dropped = queue.poll();
+                            queue.offer(t);
+                            break;
+                    }
+                }
+            }
+            PooledEvent.releaseIfPooled(dropped);
+            if (overflow && strategy == OverflowStrategy.ERROR) {
+                upstream.cancel();
+                onError(new MissingBackpressureException("Buffer is full"));
+                return;
+            }
+            if (overflow && strategy != OverflowStrategy.LATEST) {
+                try {
+                    onOverflow.run();
+                } catch (Throwable e) {
+                    Exceptions.throwIfFatal(e);
+                    upstream.cancel();
+                    onError(e);
+                    return;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                return;
+            }
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                upstream.cancel();
+                if (worker != null) {
+                    // 已经调度、还没有运行的 drain 不会再运行，不能等它清空
+                    worker.dispose();
+                }
+                clear();
+            }
+        }
+
+        private void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            if (worker != null) {
+                worker.schedule(this);
+            } else {
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+                for (;;) {
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+                    boolean d = done;
+                    T value = e == r ? peek() : poll();
+                    boolean empty = value == null;
+                    if (d) {
+                        Throwable ex = error;
+                        if (ex != null) {
+                            clear();
+                            actual.onError(ex);
+                            disposeWorker();
+                            return;
+                        }
+                        if (empty) {
+                            actual.onComplete();
+                            disposeWorker();
+                            return;
+                        }
+                    }
+                    if (empty || e == r) {
+                        break;
+                    }
+                    actual.onNext(value);
+                    PooledEvent.releaseIfPooled(value);
+                    e++;
+                }
+                if (e != 0L) {
+                    BackpressureHelper.produced(requested, e);
+                }
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void disposeWorker() {
+            if (worker != null) {
+                worker.dispose();
+            }
+        }
+
+        private T peek() {
+            synchronized (queue) {
+                return queue.peek();
+            }
+        }
+
+        private T poll() {
+            synchronized (queue) {
+                return queue.poll();
+            }
+        }
+
+        private void clear() {
+            synchronized (queue) {
+                PooledEvent.releaseAll(queue);
+                queue.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.annotations.Nullable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 不装箱的 int 事件通道，通过 {@link BaseBus#intChannel(String)} 按名字获取
+ * <p>{@link #post(int)} 和在 post 线程接收的监听者不分配内存；切换线程接收时值进入监听者自己的 int 队列，
+ * 一批连续的值只调度一次。参数为 int 并且设置了 {@code RxSubscribe#channel()} 的订阅方法注册到同名的通道。</p>
+ */
+public final class IntChannel extends PrimitiveChannel {
+
+    public interface Listener {
+        void onValue(int value) throws Exception;
+    }
+
+    IntChannel(String name) {
+        super(name);
+    }
+
+    public void post(int value) {
+        Subscription[] subscriptions = subscriptions();
+        if (subscriptions.length == 0) {
+            return;
+        }
+        synchronized (this) {
+            for (Subscription subscription : subscriptions) {
+                ((IntSubscription) subscription).onValue(value);
+            }
+        }
+    }
+
+    /**
+     * 在 post 的线程接收
+     */
+    public Disposable subscribe(@NonNull Listener listener) {
+        return subscribe(listener, null);
+    }
+
+    /**
+     * @param scheduler 为 null 时在 post 的线程接收
+     */
+    public Disposable subscribe(@NonNull Listener listener, @Nullable Scheduler scheduler) {
+        ObjectHelper.requireNonNull(listener, "listener == null");
+        return add(new IntSubscription(this, listener, scheduler));
+    }
+
+    private static final class IntSubscription extends Subscription {
+        private final Listener listener;
+
+        IntSubscription(IntChannel channel, Listener listener, @Nullable Scheduler scheduler) {
+            super(channel, scheduler);
+            this.listener = listener;
+        }
+
+        void onValue(int value) {
+            if (worker == null) {
+                deliver(value);
+                return;
+            }
+            synchronized (this) {
+                int index = offer();
+                ((int[]) queue)[index] = value;
+                if (!markScheduled()) {
+                    return;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        Object newQueue(int capacity) {
+            return new int[capacity];
+        }
+
+        @Override
+        boolean deliverNext() {
+            int value;
+            synchronized (this) {
+                int index = poll();
+                if (index < 0) {
+                    return true;
+                }
+                value = ((int[]) queue)[index];
+            }
+            deliver(value);
+            return false;
+        }
+
+        private void deliver(int value) {
+            if (isDisposed()) {
+                return;
+            }
+            try {
+                listener.onValue(value);
+            } catch (Throwable e) {
+                onListenerError(e);
+            }
+        }
+    }
+}
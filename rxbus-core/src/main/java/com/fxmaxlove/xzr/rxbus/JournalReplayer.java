@@ -0,0 +1,278 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.util.RxBusLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 把 {@link EventJournal} 记录的事件 post 到任意 {@link Bus}，用于压力测试和复现线上的事件风暴
+ * <pre>
+ * JournalReplayer.Report report = new JournalReplayer.Builder(file)
+ *         .codec(LocationEvent.class, locationCodec)
+ *         .speed(10)
+ *         .build()
+ *         .replay(bus);
+ * </pre>
+ * <p>送达延迟是从 post 开始到一个最后订阅的 {@code ofType(Object.class)} 观察者收到事件的时间，
+ * 同步的 bus 上包含了之前所有订阅者的处理时间。</p>
+ */
+public final class JournalReplayer {
+
+    private final File file;
+    private final Map<String, EventCodec<?>> codecs;
+    /** 0 不等待 */
+    private final double speed;
+    private final long drainTimeoutNanos;
+
+    private JournalReplayer(Builder builder) {
+        this.file = builder.file;
+        this.codecs = new HashMap<>(builder.codecs);
+        this.speed = builder.speed;
+        this.drainTimeoutNanos = builder.drainTimeoutNanos;
+    }
+
+    /**
+     * 在当前线程按记录的顺序 post，返回时所有事件都已经 post，并且等待异步的 bus 送达或者超时
+     */
+    public Report replay(@NonNull Bus bus) throws IOException {
+        ObjectHelper.requireNonNull(bus, "bus == null");
+        final Report report = new Report();
+        final Map<Object, Long> inFlight = new IdentityHashMap<>();
+        Disposable probe = bus.ofType(Object.class).subscribe(new Consumer<Object>() {
+            @Override
+            public void accept(Object event) throws Exception {
+                long now = System.nanoTime();
+                Long posted;
+                synchronized (inFlight) {
+                    posted = inFlight.remove(event);
+                }
+                if (posted != null) {
+                    report.deliveryLatency.record(now - posted);
+                }
+            }
+        });
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            MappedByteBuffer buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+            if (buffer.limit() < EventJournal.FILE_HEADER_SIZE || buffer.getInt(0) != EventJournal.MAGIC
+                    || buffer.getInt(4) != EventJournal.VERSION) {
+                throw new IOException(file + " is not an event journal");
+            }
+            Map<Integer, EventCodec<?>> byId = new HashMap<>();
+            long start = System.nanoTime();
+            long first = -1;
+            int position = EventJournal.FILE_HEADER_SIZE;
+            while (position + EventJournal.RECORD_HEADER_SIZE <= buffer.limit()) {
+                int length = buffer.getInt(position);
+                if (length < EventJournal.RECORD_HEADER_SIZE || position + length > buffer.limit()) {
+                    break;
+                }
+                int typeId = buffer.getInt(position + 4);
+                long time = buffer.getLong(position + 8);
+                ByteBuffer payload = buffer.duplicate();
+                payload.position(position + EventJournal.RECORD_HEADER_SIZE);
+                payload.limit(position + length);
+                position += length;
+                if (typeId == EventJournal.DEFINE) {
+                    int id = payload.getInt();
+                    byte[] name = new byte[payload.remaining()];
+                    payload.get(name);
+                    EventCodec<?> codec = codecs.get(new String(name, EventJournal.UTF_8));
+                    if (codec != null) {
+                        byId.put(id, codec);
+                    }
+                    continue;
+                }
+                EventCodec<?> codec = byId.get(typeId);
+                Object event = null;
+                if (codec != null) {
+                    try {
+                        event = codec.decode(payload.slice());
+                    } catch (Exception e) {
+                        RxBusLog.e("rxbus--journal", "decode failed", e);
+                    }
+                }
+                if (event == null) {
+                    report.skipped++;
+                    continue;
+                }
+                if (first < 0) {
+                    first = time;
+                    start = System.nanoTime();
+                }
+                if (speed > 0) {
+                    report.scheduleLag.record(awaitUntil(start + (long) ((time - first) / speed)));
+                }
+                long posted = System.nanoTime();
+                synchronized (inFlight) {
+                    inFlight.put(event, posted);
+                }
+                bus.post(event);
+                report.posted++;
+            }
+            report.durationNanos = System.nanoTime() - start;
+            long deadline = System.nanoTime() + drainTimeoutNanos;
+            while (System.nanoTime() - deadline < 0) {
+                synchronized (inFlight) {
+                    if (inFlight.isEmpty()) {
+                        break;
+                    }
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            synchronized (inFlight) {
+                report.undelivered = inFlight.size();
+            }
+        } finally {
+            probe.dispose();
+            input.close();
+        }
+        return report;
+    }
+
+    /**
+     * 挂起到接近目标时间再自旋
+     * @return 晚于目标时间的纳秒数
+     */
+    private static long awaitUntil(long target) {
+        for (;;) {
+            long remaining = target - System.nanoTime();
+            if (remaining <= 0) {
+                return -remaining;
+            }
+            if (remaining > TimeUnit.MICROSECONDS.toNanos(200)) {
+                LockSupport.parkNanos(remaining - TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        }
+    }
+
+    /**
+     * 一次回放的结果
+     */
+    public static final class Report {
+        long posted;
+        long skipped;
+        long undelivered;
+        long durationNanos;
+        final Histogram deliveryLatency = new Histogram();
+        final Histogram scheduleLag = new Histogram();
+
+        public long getPostedCount() {
+            return posted;
+        }
+
+        /**
+         * 没有编码器或者解码失败的事件个数
+         */
+        public long getSkippedCount() {
+            return skipped;
+        }
+
+        /**
+         * 等待超时时仍然没有送达的事件个数
+         */
+        public long getUndeliveredCount() {
+            return undelivered;
+        }
+
+        /**
+         * 从第一个事件到最后一个事件 post 完成的时间
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * 每秒 post 的事件个数
+         */
+        public double getThroughput() {
+            return durationNanos == 0 ? 0 : posted * 1e9 / durationNanos;
+        }
+
+        public Histogram getDeliveryLatency() {
+            return deliveryLatency;
+        }
+
+        /**
+         * 按原速或倍速回放时，实际 post 晚于计划时间的分布
+         */
+        public Histogram getScheduleLag() {
+            return scheduleLag;
+        }
+
+        @Override
+        public String toString() {
+            return "posted=" + posted + ", skipped=" + skipped + ", undelivered=" + undelivered
+                    + ", throughput=" + (long) getThroughput() + "/s, deliveryLatency{" + deliveryLatency
+                    + "}, scheduleLag{" + scheduleLag + "}";
+        }
+    }
+
+    public static final class Builder {
+        private final File file;
+        private final Map<String, EventCodec<?>> codecs = new HashMap<>();
+        private double speed = 1;
+        private long drainTimeoutNanos = TimeUnit.SECONDS.toNanos(5);
+
+        public Builder(@NonNull File file) {
+            this.file = ObjectHelper.requireNonNull(file, "file == null");
+        }
+
+        /**
+         * 按类名匹配记录时的事件类
+         */
+        public <T> Builder codec(@NonNull Class<T> eventType, @NonNull EventCodec<T> codec) {
+            ObjectHelper.requireNonNull(eventType, "eventType == null");
+            ObjectHelper.requireNonNull(codec, "codec == null");
+            codecs.put(eventType.getName(), codec);
+            return this;
+        }
+
+        /**
+         * 回放速度，1 是记录时的速度，2 是两倍速，默认 1
+         */
+        public Builder speed(double speed) {
+            if (!(speed > 0)) {
+                throw new IllegalArgumentException("speed > 0 required but it was " + speed);
+            }
+            this.speed = speed;
+            return this;
+        }
+
+        /**
+         * 不等待，尽快 post
+         */
+        public Builder asFastAsPossible() {
+            this.speed = 0;
+            return this;
+        }
+
+        /**
+         * 全部 post 之后等待异步的 bus 送达的最长时间，默认 5 秒
+         */
+        public Builder drainTimeout(long timeout, @NonNull TimeUnit unit) {
+            ObjectHelper.requireNonNull(unit, "unit == null");
+            this.drainTimeoutNanos = unit.toNanos(timeout);
+            return this;
+        }
+
+        public JournalReplayer build() {
+            return new JournalReplayer(this);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.annotations.Nullable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 不装箱的 long 事件通道，通过 {@link BaseBus#longChannel(String)} 按名字获取
+ * <p>{@link #post(long)} 和在 post 线程接收的监听者不分配内存；切换线程接收时值进入监听者自己的 long 队列，
+ * 一批连续的值只调度一次。参数为 long 并且设置了 {@code RxSubscribe#channel()} 的订阅方法注册到同名的通道。</p>
+ */
+public final class LongChannel extends PrimitiveChannel {
+
+    public interface Listener {
+        void onValue(long value) throws Exception;
+    }
+
+    LongChannel(String name) {
+        super(name);
+    }
+
+    public void post(long value) {
+        Subscription[] subscriptions = subscriptions();
+        if (subscriptions.length == 0) {
+            return;
+        }
+        synchronized (this) {
+            for (Subscription subscription : subscriptions) {
+                ((LongSubscription) subscription).onValue(value);
+            }
+        }
+    }
+
+    /**
+     * 在 post 的线程接收
+     */
+    public Disposable subscribe(@NonNull Listener listener) {
+        return subscribe(listener, null);
+    }
+
+    /**
+     * @param scheduler 为 null 时在 post 的线程接收
+     */
+    public Disposable subscribe(@NonNull Listener listener, @Nullable Scheduler scheduler) {
+        ObjectHelper.requireNonNull(listener, "listener == null");
+        return add(new LongSubscription(this, listener, scheduler));
+    }
+
+    private static final class LongSubscription extends Subscription {
+        private final Listener listener;
+
+        LongSubscription(LongChannel channel, Listener listener, @Nullable Scheduler scheduler) {
+            super(channel, scheduler);
+            this.listener = listener;
+        }
+
+        void onValue(long value) {
+            if (worker == null) {
+                deliver(value);
+                return;
+            }
+            synchronized (this) {
+                int index = offer();
+                ((long[]) queue)[index] = value;
+                if (!markScheduled()) {
+                    return;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        Object newQueue(int capacity) {
+            return new long[capacity];
+        }
+
+        @Override
+        boolean deliverNext() {
+            long value;
+            synchronized (this) {
+                int index = poll();
+                if (index < 0) {
+                    return true;
+                }
+                value = ((long[]) queue)[index];
+            }
+            deliver(value);
+            return false;
+        }
+
+        private void deliver(long value) {
+            if (isDisposed()) {
+                return;
+            }
+            try {
+                listener.onValue(value);
+            } catch (Throwable e) {
+                onListenerError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.Function;
+import io.reactivex.internal.disposables.DisposableHelper;
+
+/**
+ * 合并版的 {@code observeOn}：还没有发送给下游的事件中，key 相同的事件只保留最新的一个，
+ * 下游处理得再慢也只会看到每个 key 的最新值，而不是积压的所有事件
+ * <p>key 由事件类型和 {@code keySelector} 的结果组成，{@code keySelector} 为 null 时每个事件类型只保留最新的一个</p>
+ * <p>等待发送的 {@link PooledEvent} 持有一个引用，被新的事件替换、发送之后或者取消订阅时释放</p>
+ */
+final class ObservableConflate<T> extends Observable<T> {
+
+    private final ObservableSource<T> source;
+    private final Scheduler scheduler;
+    private final Function<? super T, ?> keySelector;
+
+    ObservableConflate(ObservableSource<T> source, Scheduler scheduler, Function<? super T, ?> keySelector) {
+        this.source = source;
+        this.scheduler = scheduler;
+        this.keySelector = keySelector;
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super T> observer) {
+        source.subscribe(new ConflateObserver<T>(observer, scheduler.createWorker(), keySelector));
+    }
+
+    static final class ConflateObserver<T> extends AtomicInteger implements Observer<T>, Disposable, Runnable {
+
+        private static final long serialVersionUID = -6291846370251178512L;
+
+        private final Observer<? super T> actual;
+        private final Scheduler.Worker worker;
+        private final Function<? super T, ?> keySelector;
+        /** guarded by itself */
+        private final Map<Object, T> pending = new LinkedHashMap<>();
+
+        private Disposable upstream;
+        private volatile boolean done;
+        private Throwable error;
+        private volatile boolean disposed;
+
+        ConflateObserver(Observer<? super T> actual, Scheduler.Worker worker, Function<? super T, ?> keySelector) {
+            this.actual = actual;
+            this.worker = worker;
+            this.keySelector = keySelector;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(upstream, d)) {
+                upstream = d;
+                actual.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                return;
+            }
+            Object key;
+            try {
+                key = keySelector == null ? t.getClass() : new Key(t.getClass(), keySelector.apply(t));
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                upstream.dispose();
+                onError(e);
+                return;
+            }
+            PooledEvent.retainIfPooled(t);
+            T replaced;
+            boolean dropped;
+            synchronized (pending) {
+                // 与 dispose 中的清空互斥，取消订阅之后到达的事件不再保存
+                dropped = disposed;
+                replaced = dropped ? t : pending.put(key, t);
+            }
+            PooledEvent.releaseIfPooled(replaced);
+            if (!dropped) {
+                schedule();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                return;
+            }
+            error = t;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                upstream.dispose();
+                worker.dispose();
+                List<T> dropped;
+                synchronized (pending) {
+                    dropped = new ArrayList<>(pending.values());
+                    pending.clear();
+                }
+                for (T value : dropped) {
+                    PooledEvent.releaseIfPooled(value);
+                }
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        private void schedule() {
+            if (getAndIncrement() == 0) {
+                worker.schedule(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (;;) {
+                for (;;) {
+                    if (disposed) {
+                        return;
+                    }
+                    boolean d = done;
+                    T value = poll();
+                    if (value == null) {
+                        if (d) {
+                            disposed = true;
+                            Throwable e = error;
+                            if (e != null) {
+                                actual.onError(e);
+                            } else {
+                                actual.onComplete();
+                            }
+                            worker.dispose();
+                            return;
+                        }
+                        break;
+                    }
+                    actual.onNext(value);
+                    PooledEvent.releaseIfPooled(value);
+                }
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private T poll() {
+            synchronized (pending) {
+                Iterator<T> iterator = pending.values().iterator();
+                if (!iterator.hasNext()) {
+                    return null;
+                }
+                T value = iterator.next();
+                iterator.remove();
+                return value;
+            }
+        }
+    }
+
+    private static final class Key {
+        private final Class<?> type;
+        private final Object id;
+
+        Key(Class<?> type, Object id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return type == other.type && (id == null ? other.id == null : id.equals(other.id));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + (id == null ? 0 : id.hashCode());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.schedulers.TrampolineScheduler;
+
+/**
+ * 持有 {@link PooledEvent} 引用的 {@code observeOn}
+ * <p>排队的事件持有一个引用，下游处理完或者取消订阅时释放；取消订阅时还在队列中的事件同样回到池中，
+ * {@code doOnNext(retain).observeOn(scheduler).doAfterNext(release)} 会漏掉它们。
+ * 结束通知在排队的事件都发出之后发出；{@code Schedulers.trampoline()} 与 {@code observeOn} 相同，直接订阅上游</p>
+ */
+final class ObservableRetainingObserveOn<T> extends Observable<T> {
+
+    private final ObservableSource<T> source;
+    private final Scheduler scheduler;
+
+    ObservableRetainingObserveOn(ObservableSource<T> source, Scheduler scheduler) {
+        this.source = source;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super T> observer) {
+        if (scheduler instanceof TrampolineScheduler) {
+            source.subscribe(observer);
+            return;
+        }
+        source.subscribe(new ObserveOnObserver<T>(observer, scheduler.createWorker()));
+    }
+
+    static final class ObserveOnObserver<T> extends AtomicInteger implements Observer<T>, Disposable, Runnable {
+
+        private static final long serialVersionUID = -2730947268542870127L;
+
+        private final Observer<? super T> actual;
+        private final Scheduler.Worker worker;
+        /** guarded by itself */
+        private final ArrayDeque<T> queue = new ArrayDeque<>();
+
+        private Disposable upstream;
+        private volatile boolean done;
+        private Throwable error;
+        private volatile boolean disposed;
+
+        ObserveOnObserver(Observer<? super T> actual, Scheduler.Worker worker) {
+            this.actual = actual;
+            this.worker = worker;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(upstream, d)) {
+                upstream = d;
+                actual.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                return;
+            }
+            PooledEvent.retainIfPooled(t);
+            boolean dropped;
+            synchronized (queue) {
+                // 与 dispose 中的 clear 互斥，取消订阅之后到达的事件不再入队
+                dropped = disposed;
+                if (!dropped) {
+                    queue.offer(t);
+                }
+            }
+            if (dropped) {
+                PooledEvent.releaseIfPooled(t);
+                return;
+            }
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                return;
+            }
+            error = t;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                upstream.dispose();
+                worker.dispose();
+                clear();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        private void schedule() {
+            if (getAndIncrement() == 0) {
+                worker.schedule(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (;;) {
+                for (;;) {
+                    if (disposed) {
+                        return;
+                    }
+                    boolean d = done;
+                    T value = poll();
+                    if (value == null) {
+                        if (d) {
+                            disposed = true;
+                            Throwable e = error;
+                            if (e != null) {
+                                actual.onError(e);
+                            } else {
+                                actual.onComplete();
+                            }
+                            worker.dispose();
+                            return;
+                        }
+                        break;
+                    }
+                    actual.onNext(value);
+                    PooledEvent.releaseIfPooled(value);
+                }
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private T poll() {
+            synchronized (queue) {
+                return queue.poll();
+            }
+        }
+
+        private void clear() {
+            synchronized (queue) {
+                PooledEvent.releaseAll(queue);
+                queue.clear();
+            }
+        }
+    }
+}
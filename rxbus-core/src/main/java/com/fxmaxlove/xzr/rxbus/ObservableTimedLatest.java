@@ -0,0 +1,194 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.disposables.SequentialDisposable;
+
+/**
+ * 持有 {@link PooledEvent} 引用的 {@code debounce} 和 {@code sample}
+ * <p>等待发出的事件持有一个引用，被新的事件替换、发出之后或者取消订阅时释放，被丢弃的事件也会回到池中。
+ * 事件和结束通知都在 {@code scheduler} 的同一个 worker 上发出；结束时 debounce 先发出等待的事件，
+ * sample 丢弃它，与 RxJava 的 {@code debounce}、{@code sample} 相同</p>
+ */
+final class ObservableTimedLatest<T> extends Observable<T> {
+
+    private final ObservableSource<T> source;
+    private final long period;
+    private final TimeUnit unit;
+    private final Scheduler scheduler;
+    private final boolean debounce;
+
+    /**
+     * @param debounce true 时 {@code period} 内没有新的事件才发出最新的事件，false 时每隔 {@code period} 发出最新的事件
+     */
+    ObservableTimedLatest(ObservableSource<T> source, long period, TimeUnit unit, Scheduler scheduler,
+                          boolean debounce) {
+        this.source = source;
+        this.period = period;
+        this.unit = unit;
+        this.scheduler = scheduler;
+        this.debounce = debounce;
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super T> observer) {
+        source.subscribe(new TimedLatestObserver<T>(observer, period, unit, scheduler.createWorker(), debounce));
+    }
+
+    static final class TimedLatestObserver<T> implements Observer<T>, Disposable {
+
+        private final Observer<? super T> actual;
+        private final long period;
+        private final TimeUnit unit;
+        private final Scheduler.Worker worker;
+        private final boolean debounce;
+        /** debounce 等待中的计时 */
+        private final SequentialDisposable timer = new SequentialDisposable();
+
+        private Disposable upstream;
+        /** 以下 guarded by this */
+        private T latest;
+        private long index;
+        private boolean done;
+
+        private volatile boolean disposed;
+
+        TimedLatestObserver(Observer<? super T> actual, long period, TimeUnit unit, Scheduler.Worker worker,
+                            boolean debounce) {
+            this.actual = actual;
+            this.period = period;
+            this.unit = unit;
+            this.worker = worker;
+            this.debounce = debounce;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(upstream, d)) {
+                upstream = d;
+                actual.onSubscribe(this);
+                if (!debounce) {
+                    timer.replace(worker.schedulePeriodically(new Emit(0), period, period, unit));
+                }
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            PooledEvent.retainIfPooled(t);
+            T replaced;
+            long current;
+            synchronized (this) {
+                if (done || disposed) {
+                    replaced = t;
+                    current = -1;
+                } else {
+                    replaced = latest;
+                    latest = t;
+                    current = ++index;
+                }
+            }
+            PooledEvent.releaseIfPooled(replaced);
+            if (debounce && current >= 0) {
+                timer.replace(worker.schedule(new Emit(current), period, unit));
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            terminate(t);
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(null);
+        }
+
+        @Override
+        public void dispose() {
+            if (disposed) {
+                return;
+            }
+            disposed = true;
+            upstream.dispose();
+            worker.dispose();
+            PooledEvent.releaseIfPooled(take(-1));
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        private void terminate(final Throwable error) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            timer.dispose();
+            worker.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    T value = take(-1);
+                    if (disposed) {
+                        PooledEvent.releaseIfPooled(value);
+                        return;
+                    }
+                    if (value != null && debounce && error == null) {
+                        actual.onNext(value);
+                    }
+                    PooledEvent.releaseIfPooled(value);
+                    if (error != null) {
+                        actual.onError(error);
+                    } else {
+                        actual.onComplete();
+                    }
+                    worker.dispose();
+                }
+            });
+        }
+
+        /**
+         * 取出等待发出的事件，调用者负责释放
+         * @param expected debounce 计时对应的序号，已经有新的事件时返回 null；-1 表示不检查
+         */
+        private T take(long expected) {
+            synchronized (this) {
+                if (expected >= 0 && expected != index) {
+                    return null;
+                }
+                T value = latest;
+                latest = null;
+                return value;
+            }
+        }
+
+        private final class Emit implements Runnable {
+            private final long expected;
+
+            Emit(long expected) {
+                this.expected = expected;
+            }
+
+            @Override
+            public void run() {
+                T value = take(debounce ? expected : -1);
+                if (value == null) {
+                    return;
+                }
+                if (!disposed) {
+                    actual.onNext(value);
+                }
+                PooledEvent.releaseIfPooled(value);
+            }
+        }
+    }
+}
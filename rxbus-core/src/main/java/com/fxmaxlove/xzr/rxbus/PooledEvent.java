@@ -0,0 +1,160 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import io.reactivex.annotations.Nullable;
+
+/**
+ * 可以回收复用的事件，通过 {@link EventPool#acquire()} 获取，用引用计数决定什么时候回到池中
+ * <p>获取时计数为 1，由生产者持有；{@code post} 接管这一个引用，之后生产者不能再使用该事件。
+ * bus 在事件排队等待切换线程、保存为粘滞事件或历史事件时各持有一个引用，
+ * 最后一个订阅者处理完、并且不再被保存时计数归零，{@link #reset()} 之后回到池中。</p>
+ * <p>订阅者在方法返回之后还要使用事件时，先 {@link #retain()}，用完之后 {@link #release()}</p>
+ * <p>{@link EventPool#setDebug(boolean) 调试模式}下释放的事件不再复用，
+ * 子类的读写方法调用 {@link #checkAlive()} 就能发现释放之后的使用</p>
+ */
+public abstract class PooledEvent {
+
+    private static final AtomicIntegerFieldUpdater<PooledEvent> REF_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(PooledEvent.class, "refCount");
+
+    private volatile int refCount = 1;
+    /** 所属的池，直接创建的事件为 null，释放后只 {@link #reset()} */
+    @Nullable
+    EventPool<?> pool;
+    /** 调试模式下记录释放的位置 */
+    @Nullable
+    private volatile Throwable releasedAt;
+
+    /**
+     * 增加一个引用
+     * @throws IllegalStateException 事件已经释放
+     */
+    public final PooledEvent retain() {
+        if (!tryRetain()) {
+            throw released("retain");
+        }
+        return this;
+    }
+
+    /**
+     * 减少一个引用，归零时回到池中
+     * @throws IllegalStateException 事件已经释放
+     */
+    public final void release() {
+        for (;;) {
+            int count = refCount;
+            if (count <= 0) {
+                throw released("release");
+            }
+            if (REF_COUNT.compareAndSet(this, count, count - 1)) {
+                if (count == 1) {
+                    recycle();
+                }
+                return;
+            }
+        }
+    }
+
+    public final int refCount() {
+        return refCount;
+    }
+
+    public final boolean isReleased() {
+        return refCount <= 0;
+    }
+
+    /**
+     * 调试模式下事件已经释放时抛出，子类的读写方法中调用；非调试模式下不检查
+     * @throws IllegalStateException 事件已经释放
+     */
+    protected final void checkAlive() {
+        if (EventPool.isDebug() && refCount <= 0) {
+            throw released("access");
+        }
+    }
+
+    /**
+     * 回到池中之前清空内容，释放对其它对象的引用
+     */
+    protected abstract void reset();
+
+    /**
+     * 计数不为 0 时增加一个引用
+     */
+    private boolean tryRetain() {
+        for (;;) {
+            int count = refCount;
+            if (count <= 0) {
+                return false;
+            }
+            if (REF_COUNT.compareAndSet(this, count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 从池中取出时重新持有
+     */
+    final void acquired() {
+        releasedAt = null;
+        refCount = 1;
+    }
+
+    private void recycle() {
+        if (EventPool.isDebug()) {
+            releasedAt = new Throwable("released here");
+        }
+        reset();
+        EventPool<?> pool = this.pool;
+        if (pool != null) {
+            pool.recycle(this);
+        }
+    }
+
+    private IllegalStateException released(String operation) {
+        IllegalStateException e = new IllegalStateException(operation + " after release: " + getClass().getName());
+        Throwable where = releasedAt;
+        if (where != null) {
+            e.initCause(where);
+        }
+        return e;
+    }
+
+    static void retainIfPooled(Object event) {
+        if (event instanceof PooledEvent) {
+            ((PooledEvent) event).retain();
+        }
+    }
+
+    static void releaseIfPooled(@Nullable Object event) {
+        if (event instanceof PooledEvent) {
+            ((PooledEvent) event).release();
+        }
+    }
+
+    static void releaseAll(Collection<?> events) {
+        for (Object event : events) {
+            releaseIfPooled(event);
+        }
+    }
+
+    /**
+     * @throws IllegalStateException {@code post} 已经释放的事件
+     */
+    static void checkNotReleased(Object event) {
+        if (event instanceof PooledEvent && ((PooledEvent) event).refCount <= 0) {
+            throw ((PooledEvent) event).released("post");
+        }
+    }
+
+    /**
+     * 该类型的订阅是否可能收到池化的事件，不可能时不需要额外的 retain、release
+     */
+    static boolean mayBePooled(Class<?> eventType) {
+        return eventType.isInterface() || eventType.isAssignableFrom(PooledEvent.class)
+                || PooledEvent.class.isAssignableFrom(eventType);
+    }
+}
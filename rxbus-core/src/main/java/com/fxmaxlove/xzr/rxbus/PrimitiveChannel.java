@@ -0,0 +1,193 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.util.RxBusLog;
+
+import java.util.Arrays;
+
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.Nullable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.Exceptions;
+
+/**
+ * {@link IntChannel}、{@link LongChannel}、{@link DoubleChannel} 的公共部分
+ * <p>监听者保存在写时复制的数组中，post 时不分配内存；同一个通道的 post 串行执行，监听者按 post 的顺序收到值</p>
+ */
+abstract class PrimitiveChannel {
+
+    private static final Subscription[] EMPTY = new Subscription[0];
+    /** 切换线程时每个监听者队列的初始大小，满时扩容 */
+    static final int INITIAL_QUEUE_SIZE = 16;
+
+    final String name;
+    private volatile Subscription[] subscriptions = EMPTY;
+
+    PrimitiveChannel(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean hasListeners() {
+        return subscriptions.length != 0;
+    }
+
+    final Subscription[] subscriptions() {
+        return subscriptions;
+    }
+
+    final synchronized Disposable add(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscription;
+        subscriptions = updated;
+        return subscription;
+    }
+
+    final synchronized void remove(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                if (current.length == 1) {
+                    subscriptions = EMPTY;
+                    return;
+                }
+                Subscription[] updated = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscriptions = updated;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + name + ")";
+    }
+
+    /**
+     * 一个监听者，{@link #worker} 为 null 时在 post 的线程直接调用，
+     * 否则 post 的值先进入该监听者的队列，一批连续的值只调度一次
+     * <p>队列是子类的基本类型数组组成的环形队列，这里只管理位置和扩容，子类按 {@link #offer()}、
+     * {@link #poll()} 返回的位置读写 {@link #queue}</p>
+     */
+    abstract static class Subscription implements Disposable, Runnable {
+        private final PrimitiveChannel channel;
+        @Nullable
+        final Scheduler.Worker worker;
+        /** {@link #newQueue(int)} 创建的数组，第一次入队时创建，guarded by this */
+        @Nullable
+        Object queue;
+        /** guarded by this */
+        private int capacity;
+        /** guarded by this */
+        private int head;
+        /** guarded by this */
+        private int size;
+        /** guarded by this */
+        private boolean scheduled;
+        private volatile boolean disposed;
+
+        Subscription(PrimitiveChannel channel, @Nullable Scheduler scheduler) {
+            this.channel = channel;
+            this.worker = scheduler == null ? null : scheduler.createWorker();
+        }
+
+        /**
+         * @return 长度为 {@code capacity} 的基本类型数组
+         */
+        abstract Object newQueue(int capacity);
+
+        /**
+         * 在 {@link #worker} 上取出并调用一个值，持有 this 锁读取队列，调用时不持有
+         * @return 队列已经为空
+         */
+        abstract boolean deliverNext();
+
+        /**
+         * 持有 this 锁调用，队列满时扩容
+         * @return 新的值在 {@link #queue} 中的位置
+         */
+        final int offer() {
+            if (queue == null) {
+                queue = newQueue(INITIAL_QUEUE_SIZE);
+                capacity = INITIAL_QUEUE_SIZE;
+            } else if (size == capacity) {
+                Object grown = newQueue(capacity << 1);
+                System.arraycopy(queue, head, grown, 0, capacity - head);
+                System.arraycopy(queue, 0, grown, capacity - head, head);
+                queue = grown;
+                head = 0;
+                capacity <<= 1;
+            }
+            int index = (head + size) & (capacity - 1);
+            size++;
+            return index;
+        }
+
+        /**
+         * 持有 this 锁调用，队列为空时不再处于调度中
+         * @return 队头的值在 {@link #queue} 中的位置，队列为空时返回 -1
+         */
+        final int poll() {
+            if (size == 0) {
+                scheduled = false;
+                return -1;
+            }
+            int index = head;
+            head = (head + 1) & (capacity - 1);
+            size--;
+            return index;
+        }
+
+        /**
+         * 持有 this 锁调用，值已经入队
+         * @return 需要调度到 {@link #worker}
+         */
+        final boolean markScheduled() {
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        final void schedule() {
+            worker.schedule(this);
+        }
+
+        /**
+         * 监听者抛出的异常只记录，不影响之后的值
+         */
+        final void onListenerError(Throwable e) {
+            Exceptions.throwIfFatal(e);
+            RxBusLog.e("rxbus--channel", channel.name + " listener threw", e);
+        }
+
+        @Override
+        public final void run() {
+            while (!disposed && !deliverNext()) {
+                // 一次调度送达队列中的所有值
+            }
+        }
+
+        @Override
+        public final void dispose() {
+            if (!disposed) {
+                disposed = true;
+                channel.remove(this);
+                if (worker != null) {
+                    worker.dispose();
+                }
+            }
+        }
+
+        @Override
+        public final boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.util.RxBusLog;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 通过内存映射文件在多个进程的 bus 之间同步事件
+ * <p>注册了 {@link EventCodec} 的事件类（按 {@code event.getClass()} 匹配）post 时编码写入文件中的环形缓冲区，
+ * 其它进程的读取线程解码后在本进程的 bus 上 post，订阅者照常通过 {@code ofType} 接收。
+ * 从其它进程收到的事件不会再写回文件。</p>
+ * <p>缓冲区是广播的：每个进程只读取打开之后写入的事件，读得太慢被覆盖的事件会丢弃并输出日志。
+ * 写入时用 {@link FileLock} 在进程间加锁，每个进程对同一个文件只能打开一个 ProcessBridge。</p>
+ * <pre>
+ * ProcessBridge bridge = new ProcessBridge.Builder(new File("/dev/shm/rxbus"))
+ *         .codec(LoginEvent.class, loginCodec)
+ *         .build(RxBus.getDefault());
+ * </pre>
+ */
+public final class ProcessBridge implements Closeable {
+
+    private static final int MAGIC = 0x52784262;
+    private static final int VERSION = 1;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int WRITE_POSITION_OFFSET = 16;
+    private static final int HEADER_SIZE = 64;
+    /** length、typeId、sourceId */
+    private static final int RECORD_HEADER_SIZE = 16;
+    /** 缓冲区末尾放不下一条记录时写入，读取时跳到开头 */
+    private static final int PADDING = -1;
+
+    private final BaseBus bus;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private final int capacity;
+    private final long pollNanos;
+    private final Map<Class<?>, Registration> byType;
+    private final Map<Integer, Registration> byId;
+    /** 区分自己写入的记录 */
+    private final long sourceId = new Random().nextLong();
+    /** 同一进程内 {@link FileLock} 不能重叠，进程内先用这个锁 */
+    private final Object fileLockGuard = new Object();
+    /** 只在持有 this 锁时使用 */
+    private final ByteBuffer encodeBuffer;
+    private final Thread reader;
+    private volatile boolean closed;
+
+    private ProcessBridge(Builder builder, BaseBus bus) throws IOException {
+        this.bus = bus;
+        this.byType = new HashMap<>(builder.registrations);
+        this.byId = new HashMap<>();
+        for (Registration registration : byType.values()) {
+            byId.put(registration.id, registration);
+        }
+        this.pollNanos = builder.pollNanos;
+        this.file = new RandomAccessFile(builder.file, "rw");
+        this.channel = file.getChannel();
+        try {
+            this.capacity = open(builder.capacity);
+            this.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+            this.reader = new Thread(new Reader(writePosition()), "rxbus-bridge");
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+        this.encodeBuffer = ByteBuffer.allocate(capacity / 4);
+        reader.setDaemon(true);
+    }
+
+    /**
+     * 文件为空或者不是 ProcessBridge 的文件时初始化，否则使用文件中的容量
+     */
+    private int open(int capacity) throws IOException {
+        synchronized (fileLockGuard) {
+            FileLock lock = channel.lock(0, HEADER_SIZE, false);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                if (channel.size() >= HEADER_SIZE) {
+                    channel.read(header, 0);
+                    if (header.getInt(0) == MAGIC && header.getInt(4) == VERSION) {
+                        return header.getInt(CAPACITY_OFFSET);
+                    }
+                }
+                header.clear();
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putInt(CAPACITY_OFFSET, capacity);
+                header.putLong(WRITE_POSITION_OFFSET, 0);
+                channel.truncate(0);
+                channel.write(header, 0);
+                file.setLength(HEADER_SIZE + capacity);
+                return capacity;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 停止读取线程，之后 post 的事件不再发送到其它进程
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        bus.setBridge(this, null);
+        LockSupport.unpark(reader);
+        if (reader != Thread.currentThread()) {
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            file.close();
+        }
+    }
+
+    /**
+     * 在 post 的线程调用
+     */
+    @SuppressWarnings("unchecked")
+    void publish(Object event) {
+        Registration registration = byType.get(event.getClass());
+        if (registration == null) {
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            ByteBuffer buffer = encodeBuffer;
+            buffer.clear();
+            try {
+                ((EventCodec<Object>) registration.codec).encode(event, buffer);
+            } catch (BufferOverflowException e) {
+                RxBusLog.e("rxbus--bridge", "event larger than " + buffer.capacity() + " bytes not bridged: " + event, null);
+                return;
+            } catch (Exception e) {
+                RxBusLog.e("rxbus--bridge", "encode failed: " + event, e);
+                return;
+            }
+            buffer.flip();
+            try {
+                write(registration.id, buffer);
+            } catch (IOException e) {
+                RxBusLog.e("rxbus--bridge", "bridge write failed", e);
+            }
+        }
+    }
+
+    private void write(int typeId, ByteBuffer payload) throws IOException {
+        int length = align(RECORD_HEADER_SIZE + payload.remaining());
+        ByteBuffer ring = mapped.duplicate();
+        synchronized (fileLockGuard) {
+            FileLock lock = channel.lock(0, HEADER_SIZE, false);
+            try {
+                long position = ring.getLong(WRITE_POSITION_OFFSET);
+                int offset = (int) (position % capacity);
+                if (offset + length > capacity) {
+                    ring.putInt(HEADER_SIZE + offset, PADDING);
+                    position += capacity - offset;
+                    offset = 0;
+                }
+                int start = HEADER_SIZE + offset;
+                ring.putInt(start + 4, typeId);
+                ring.putLong(start + 8, sourceId);
+                ring.position(start + RECORD_HEADER_SIZE);
+                ring.put(payload);
+                ring.putInt(start, length);
+                ring.putLong(WRITE_POSITION_OFFSET, position + length);
+            } finally {
+                // 释放锁之前的写入对之后加锁读取写入位置的进程可见
+                lock.release();
+            }
+        }
+    }
+
+    private long writePosition() throws IOException {
+        synchronized (fileLockGuard) {
+            FileLock lock = channel.lock(0, HEADER_SIZE, true);
+            try {
+                return mapped.getLong(WRITE_POSITION_OFFSET);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * 读取其它进程写入的记录：先复制到本地再检查是否在复制期间被覆盖，没有被覆盖才解码
+     */
+    private final class Reader implements Runnable {
+        private final byte[] batch = new byte[capacity];
+        private long position;
+
+        Reader(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    if (!poll()) {
+                        LockSupport.parkNanos(this, pollNanos);
+                    }
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    RxBusLog.e("rxbus--bridge", "bridge read failed", e);
+                }
+            }
+        }
+
+        private boolean poll() throws IOException {
+            long limit = writePosition();
+            if (limit == position) {
+                return false;
+            }
+            if (limit - position > capacity) {
+                lost(limit - position);
+                position = limit;
+                return true;
+            }
+            int size = (int) (limit - position);
+            int offset = (int) (position % capacity);
+            ByteBuffer ring = mapped.duplicate();
+            ring.position(HEADER_SIZE + offset);
+            int first = Math.min(size, capacity - offset);
+            ring.get(batch, 0, first);
+            if (first < size) {
+                ring.position(HEADER_SIZE);
+                ring.get(batch, first, size - first);
+            }
+            if (writePosition() - capacity > position) {
+                lost(size);
+                position = limit;
+                return true;
+            }
+            dispatch(ByteBuffer.wrap(batch, 0, size), offset);
+            position = limit;
+            return true;
+        }
+
+        private void dispatch(ByteBuffer records, int offset) {
+            while (records.hasRemaining() && !closed) {
+                int start = records.position();
+                int length = records.getInt(start);
+                if (length == PADDING) {
+                    records.position(start + capacity - (offset + start) % capacity);
+                    continue;
+                }
+                int typeId = records.getInt(start + 4);
+                long source = records.getLong(start + 8);
+                records.position(start + length);
+                Registration registration = byId.get(typeId);
+                if (source == sourceId || registration == null) {
+                    continue;
+                }
+                ByteBuffer payload = records.duplicate();
+                payload.position(start + RECORD_HEADER_SIZE);
+                payload.limit(start + length);
+                Object event;
+                try {
+                    event = registration.codec.decode(payload.slice());
+                } catch (Exception e) {
+                    RxBusLog.e("rxbus--bridge", "decode failed: " + registration.eventType.getName(), e);
+                    continue;
+                }
+                if (event != null) {
+                    bus.postLocal(event);
+                }
+            }
+        }
+
+        private void lost(long bytes) {
+            RxBusLog.e("rxbus--bridge", "bridge reader overrun, " + bytes + " bytes of events lost", null);
+        }
+    }
+
+    private static final class Registration {
+        final int id;
+        final Class<?> eventType;
+        final EventCodec<?> codec;
+
+        Registration(Class<?> eventType, EventCodec<?> codec) {
+            // 两个进程按类名得到相同的 id
+            this.id = eventType.getName().hashCode();
+            this.eventType = eventType;
+            this.codec = codec;
+        }
+    }
+
+    public static final class Builder {
+        private final File file;
+        private int capacity = 1 << 20;
+        private long pollNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        private final Map<Class<?>, Registration> registrations = new HashMap<>();
+
+        /**
+         * @param file 多个进程使用同一个文件，例如 tmpfs 上的文件
+         */
+        public Builder(@NonNull File file) {
+            this.file = ObjectHelper.requireNonNull(file, "file == null");
+        }
+
+        /**
+         * 缓冲区字节数，默认 1MB；文件已经初始化过时使用文件中的容量。单个事件的编码最多是容量的 1/4
+         */
+        public Builder capacity(int capacity) {
+            if (capacity < 1024) {
+                throw new IllegalArgumentException("capacity >= 1024 required but it was " + capacity);
+            }
+            this.capacity = align(capacity);
+            return this;
+        }
+
+        /**
+         * 没有新事件时读取线程的检查间隔，默认 1ms
+         */
+        public Builder pollInterval(long interval, @NonNull TimeUnit unit) {
+            ObjectHelper.requireNonNull(unit, "unit == null");
+            ObjectHelper.verifyPositive(interval, "interval");
+            this.pollNanos = unit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * 同步该事件类的事件
+         */
+        public <T> Builder codec(@NonNull Class<T> eventType, @NonNull EventCodec<T> codec) {
+            ObjectHelper.requireNonNull(eventType, "eventType == null");
+            ObjectHelper.requireNonNull(codec, "codec == null");
+            Registration registration = new Registration(eventType, codec);
+            for (Registration other : registrations.values()) {
+                if (other.id == registration.id && other.eventType != eventType) {
+                    throw new IllegalArgumentException("type id of " + eventType.getName()
+                            + " collides with " + other.eventType.getName());
+                }
+            }
+            registrations.put(eventType, registration);
+            return this;
+        }
+
+        /**
+         * 打开文件并开始同步 {@code bus} 的事件，一个 bus 同时只能有一个 ProcessBridge
+         */
+        public ProcessBridge build(@NonNull BaseBus bus) throws IOException {
+            ObjectHelper.requireNonNull(bus, "bus == null");
+            ProcessBridge bridge = new ProcessBridge(this, bus);
+            if (!bus.setBridge(null, bridge)) {
+                bridge.closed = true;
+                bridge.file.close();
+                throw new IllegalStateException("bus already has a ProcessBridge");
+            }
+            bridge.reader.start();
+            return bridge;
+        }
+    }
+}
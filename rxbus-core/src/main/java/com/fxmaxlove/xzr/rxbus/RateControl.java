@@ -0,0 +1,152 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Predicate;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * 订阅方法的限流配置，来自 {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe} 的
+ * {@code throttleFirstMillis}、{@code debounceMillis}、{@code sampleMillis}、{@code distinct}、{@code maxRatePerSecond}
+ * <p>在切换到接收线程之前生效，被丢弃的事件不会进入接收线程的队列。同时配置多个时按
+ * distinct、throttleFirst、debounce、sample、maxRate 的顺序依次过滤</p>
+ */
+final class RateControl {
+
+    private static final RateControl NONE = new RateControl(0, 0, 0, false, 0);
+
+    final long throttleFirstMillis;
+    final long debounceMillis;
+    final long sampleMillis;
+    final boolean distinct;
+    final int maxRatePerSecond;
+
+    private RateControl(long throttleFirstMillis, long debounceMillis, long sampleMillis,
+                        boolean distinct, int maxRatePerSecond) {
+        this.throttleFirstMillis = throttleFirstMillis;
+        this.debounceMillis = debounceMillis;
+        this.sampleMillis = sampleMillis;
+        this.distinct = distinct;
+        this.maxRatePerSecond = maxRatePerSecond;
+    }
+
+    /**
+     * 小于等于 0 的时间和速率表示不限制
+     */
+    static RateControl of(long throttleFirstMillis, long debounceMillis, long sampleMillis,
+                          boolean distinct, int maxRatePerSecond) {
+        if (throttleFirstMillis <= 0 && debounceMillis <= 0 && sampleMillis <= 0 && !distinct
+                && maxRatePerSecond <= 0) {
+            return NONE;
+        }
+        return new RateControl(Math.max(throttleFirstMillis, 0), Math.max(debounceMillis, 0),
+                Math.max(sampleMillis, 0), distinct, Math.max(maxRatePerSecond, 0));
+    }
+
+    boolean isNone() {
+        return this == NONE;
+    }
+
+    /**
+     * 时间窗口使用 {@link io.reactivex.schedulers.Schedulers#computation()} 计时，
+     * debounce、sample 在计时线程上发出事件
+     * <p>{@code eventType} 可能是 {@link PooledEvent} 时，distinct 比较的上一个事件、
+     * debounce 和 sample 等待发出的事件各持有一个引用，见 {@link ObservableTimedLatest}；取消订阅时释放</p>
+     */
+    <T> Observable<T> apply(Observable<T> observable, Class<?> eventType) {
+        boolean pooled = PooledEvent.mayBePooled(eventType);
+        if (distinct) {
+            if (pooled) {
+                Distinct<T> filter = new Distinct<>();
+                observable = observable.filter(filter).doFinally(filter);
+            } else {
+                observable = observable.distinctUntilChanged();
+            }
+        }
+        if (throttleFirstMillis > 0) {
+            observable = observable.throttleFirst(throttleFirstMillis, TimeUnit.MILLISECONDS);
+        }
+        if (debounceMillis > 0) {
+            observable = pooled
+                    ? new ObservableTimedLatest<>(observable, debounceMillis, TimeUnit.MILLISECONDS,
+                            Schedulers.computation(), true)
+                    : observable.debounce(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+        if (sampleMillis > 0) {
+            observable = pooled
+                    ? new ObservableTimedLatest<>(observable, sampleMillis, TimeUnit.MILLISECONDS,
+                            Schedulers.computation(), false)
+                    : observable.sample(sampleMillis, TimeUnit.MILLISECONDS);
+        }
+        if (maxRatePerSecond > 0) {
+            observable = observable.filter(new MaxRate<T>(maxRatePerSecond));
+        }
+        return observable;
+    }
+
+    @Override
+    public String toString() {
+        return "RateControl{throttleFirst=" + throttleFirstMillis + "ms, debounce=" + debounceMillis
+                + "ms, sample=" + sampleMillis + "ms, distinct=" + distinct + ", maxRate=" + maxRatePerSecond + "/s}";
+    }
+
+    /**
+     * 与 {@code distinctUntilChanged()} 相同，只是持有上一个事件的引用，池化的事件不会在比较之前被复用；
+     * 结束或者取消订阅时释放。取消订阅可能在其它线程，与比较互斥
+     */
+    private static final class Distinct<T> implements Predicate<T>, Action {
+        private T last;
+        private boolean finished;
+
+        @Override
+        public synchronized boolean test(T event) {
+            if (finished) {
+                return false;
+            }
+            T previous = last;
+            if (previous != null && (previous == event || previous.equals(event))) {
+                return false;
+            }
+            PooledEvent.retainIfPooled(event);
+            last = event;
+            PooledEvent.releaseIfPooled(previous);
+            return true;
+        }
+
+        @Override
+        public synchronized void run() {
+            finished = true;
+            PooledEvent.releaseIfPooled(last);
+            last = null;
+        }
+    }
+
+    /**
+     * 每秒最多 {@code rate} 个，允许一次突发 {@code rate} 个，超出的事件直接丢弃
+     * <p>按 GCRA 计算：每个事件让理论到达时间后移一个间隔，理论到达时间超前当前时间一秒以上时丢弃。
+     * 上游已经串行化，不需要同步</p>
+     */
+    private static final class MaxRate<T> implements Predicate<T> {
+        private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+        private final long interval;
+        private long theoreticalArrival = System.nanoTime();
+
+        MaxRate(int rate) {
+            this.interval = WINDOW / rate;
+        }
+
+        @Override
+        public boolean test(T event) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrival - now < 0 ? now : theoreticalArrival;
+            if (tat + interval - now > WINDOW) {
+                return false;
+            }
+            theoreticalArrival = tat + interval;
+            return true;
+        }
+    }
+}
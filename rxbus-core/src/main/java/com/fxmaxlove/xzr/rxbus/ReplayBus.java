@@ -0,0 +1,357 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.jakewharton.rxrelay2.PublishRelay;
+import com.jakewharton.rxrelay2.Relay;
+import com.jakewharton.rxrelay2.ReplayRelay;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.Observer;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 所有观察者都能接收到事件（无论先发送事件还是先订阅观察者或者订阅多个观察者都能同样接收）
+ * http://reactivex.io/RxJava/2.x/javadoc/io/reactivex/subjects/ReplaySubject.html
+ * <p>默认构造的 ReplayBus 使用一个 {@link ReplayRelay} 保存所有类型的所有事件，新的订阅者要过滤全部历史。
+ * 使用 {@link #ReplayBus(StickyPolicy)} 或 {@link Builder} 创建时每个事件类型单独保存，
+ * 按该类型的 {@link StickyPolicy} 限制个数、时间或字节数，新的订阅者只回放自己订阅类型（及其子类）的历史。</p>
+ * <p>保存的 {@link PooledEvent} 持有一个引用，按类型保存时被裁剪、过期后释放；使用 {@link ReplayRelay} 时
+ * 被它按个数或时间丢弃后释放</p>
+ */
+
+public class ReplayBus extends BaseBus {
+
+    private static volatile ReplayBus defaultBus;
+
+    public static ReplayBus getDefault() {
+        if (defaultBus == null) {
+            synchronized (ReplayBus.class) {
+                if (defaultBus == null) {
+                    defaultBus = new ReplayBus();
+                }
+            }
+        }
+        return defaultBus;
+    }
+
+    /**
+     * 按类型保存历史时不为 null
+     */
+    private final RecordingRelay recorder;
+
+    /**
+     * @param replayRelay 有个数或时间限制时，每次 post {@link PooledEvent} 都要读取它保存的所有事件来找出被丢弃的事件，
+     *                    开销与保存的个数成正比；池化的事件建议使用 {@link #ReplayBus(StickyPolicy)}
+     */
+    public ReplayBus(ReplayRelay<Object> replayRelay) {
+        this(replayRelay, false);
+    }
+
+    public ReplayBus() {
+        this(ReplayRelay.create(), true);
+    }
+
+    private ReplayBus(ReplayRelay<Object> replayRelay, boolean unbounded) {
+        super(new RetainingRelay(replayRelay, unbounded));
+        recorder = null;
+    }
+
+    /**
+     * 按类型保存历史，所有类型使用同一个保留策略
+     */
+    public ReplayBus(@NonNull StickyPolicy policy) {
+        this(new Builder().defaultPolicy(policy));
+    }
+
+    ReplayBus(Builder builder) {
+        this(new RecordingRelay(new EventStore(builder.defaultPolicy, builder.policies)));
+    }
+
+    private ReplayBus(RecordingRelay recorder) {
+        super(recorder);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public <T> Observable<T> ofType(Class<T> eventType) {
+        if (recorder == null) {
+            return super.ofType(eventType);
+        }
+        return new ObservableHistory<>(recorder, eventType);
+    }
+
+    @Override
+    public boolean hasObservers() {
+        if (recorder == null) {
+            return super.hasObservers();
+        }
+        return recorder.live.hasObservers();
+    }
+
+    /**
+     * 按类型保存历史时只看订阅了 {@code eventType} 或其父类型的订阅者
+     */
+    @Override
+    public boolean hasObservers(Class<?> eventType) {
+        if (recorder == null) {
+            return super.hasObservers(eventType);
+        }
+        return recorder.hasObservers(eventType);
+    }
+
+    /**
+     * 按类型保存历史时的配置
+     */
+    public static final class Builder {
+        private StickyPolicy defaultPolicy = StickyPolicy.unbounded();
+        private final Map<Class<?>, StickyPolicy> policies = new HashMap<>();
+
+        /**
+         * 没有单独配置的类型使用的保留策略，默认 {@link StickyPolicy#unbounded()}
+         */
+        public Builder defaultPolicy(@NonNull StickyPolicy policy) {
+            ObjectHelper.requireNonNull(policy, "policy == null");
+            defaultPolicy = policy;
+            return this;
+        }
+
+        /**
+         * 某一事件类的保留策略，按 {@code event.getClass()} 匹配，不包括子类
+         */
+        public Builder policy(@NonNull Class<?> eventType, @NonNull StickyPolicy policy) {
+            ObjectHelper.requireNonNull(eventType, "eventType == null");
+            ObjectHelper.requireNonNull(policy, "policy == null");
+            policies.put(eventType, policy);
+            return this;
+        }
+
+        public ReplayBus build() {
+            return new ReplayBus(this);
+        }
+    }
+
+    /**
+     * 带序号的事件，序号在串行化的 {@link RecordingRelay#accept(Object)} 中分配
+     */
+    static final class Record {
+        final long seq;
+        final Object event;
+
+        Record(long seq, Object event) {
+            this.seq = seq;
+            this.event = event;
+        }
+    }
+
+    /**
+     * 先保存再发送，保存的事件和发送给订阅者的事件有相同的序号
+     * <p>没有订阅者时也要保存，所以 {@link #hasObservers()} 总是返回 true</p>
+     */
+    static final class RecordingRelay extends Relay<Object> {
+        private static final Function<Record, Object> UNWRAP = new Function<Record, Object>() {
+            @Override
+            public Object apply(Record record) throws Exception {
+                return record.event;
+            }
+        };
+
+        final EventStore store;
+        final PublishRelay<Record> live = PublishRelay.create();
+        /** 每个订阅类型现有的 {@link ObservableHistory} 订阅者个数 */
+        private final ConcurrentMap<Class<?>, AtomicInteger> observers = new ConcurrentHashMap<>();
+        /** 只在串行化的 accept 中修改 */
+        private long seq;
+        /** 已经保存的最大序号 */
+        volatile long lastSeq;
+
+        RecordingRelay(EventStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public void accept(Object event) {
+            long s = ++seq;
+            store.add(event, s);
+            lastSeq = s;
+            live.accept(new Record(s, event));
+        }
+
+        @Override
+        public boolean hasObservers() {
+            return true;
+        }
+
+        @Override
+        protected void subscribeActual(Observer<? super Object> observer) {
+            live.map(UNWRAP).subscribe(observer);
+        }
+
+        void addObserver(Class<?> eventType) {
+            AtomicInteger count = observers.get(eventType);
+            if (count == null) {
+                AtomicInteger created = new AtomicInteger();
+                count = observers.putIfAbsent(eventType, created);
+                if (count == null) {
+                    count = created;
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        void removeObserver(Class<?> eventType) {
+            observers.get(eventType).decrementAndGet();
+        }
+
+        boolean hasObservers(Class<?> eventType) {
+            for (Class<?> type : EventTypes.of(eventType)) {
+                AtomicInteger count = observers.get(type);
+                if (count != null && count.get() > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 先订阅实时事件再读取历史：回放历史期间到达的实时事件先排队，
+     * 序号不大于历史最大序号的实时事件已经在历史中，丢弃
+     */
+    static final class ObservableHistory<T> extends Observable<T> {
+        private final RecordingRelay recorder;
+        private final Class<T> eventType;
+
+        ObservableHistory(RecordingRelay recorder, Class<T> eventType) {
+            this.recorder = recorder;
+            this.eventType = eventType;
+        }
+
+        @Override
+        protected void subscribeActual(Observer<? super T> observer) {
+            HistoryObserver<T> parent = new HistoryObserver<>(observer, recorder, eventType);
+            recorder.addObserver(eventType);
+            recorder.live.subscribe(parent);
+            long maxSeq = recorder.lastSeq;
+            parent.replay(recorder.store.history(eventType, maxSeq), maxSeq);
+        }
+    }
+
+    static final class HistoryObserver<T> implements Observer<Record>, Disposable {
+        private final Observer<? super T> actual;
+        private final RecordingRelay recorder;
+        private final Class<T> eventType;
+        private Disposable upstream;
+        private volatile boolean disposed;
+        /** guarded by this */
+        private boolean replaying = true;
+        /** guarded by this */
+        private List<Record> queue;
+        private long maxSeq = Long.MAX_VALUE;
+
+        HistoryObserver(Observer<? super T> actual, RecordingRelay recorder, Class<T> eventType) {
+            this.actual = actual;
+            this.recorder = recorder;
+            this.eventType = eventType;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            upstream = d;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(Record record) {
+            if (!eventType.isInstance(record.event)) {
+                return;
+            }
+            synchronized (this) {
+                if (replaying) {
+                    if (queue == null) {
+                        queue = new ArrayList<>(4);
+                    }
+                    PooledEvent.retainIfPooled(record.event);
+                    queue.add(record);
+                    return;
+                }
+            }
+            emit(record);
+        }
+
+        /**
+         * @param history 其中的 {@link PooledEvent} 已经 retain，送出或者取消订阅之后释放
+         */
+        void replay(List<Object> history, long maxSeq) {
+            synchronized (this) {
+                this.maxSeq = maxSeq;
+            }
+            for (int i = 0; i < history.size(); i++) {
+                if (disposed) {
+                    PooledEvent.releaseAll(history.subList(i, history.size()));
+                    return;
+                }
+                Object event = history.get(i);
+                actual.onNext(eventType.cast(event));
+                PooledEvent.releaseIfPooled(event);
+            }
+            for (;;) {
+                List<Record> q;
+                synchronized (this) {
+                    q = queue;
+                    if (q == null) {
+                        replaying = false;
+                        return;
+                    }
+                    queue = null;
+                }
+                for (Record record : q) {
+                    emit(record);
+                    PooledEvent.releaseIfPooled(record.event);
+                }
+            }
+        }
+
+        private void emit(Record record) {
+            if (!disposed && record.seq > maxSeq) {
+                actual.onNext(eventType.cast(record.event));
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            actual.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            actual.onComplete();
+        }
+
+        @Override
+        public void dispose() {
+            synchronized (this) {
+                if (disposed) {
+                    return;
+                }
+                disposed = true;
+            }
+            upstream.dispose();
+            recorder.removeObserver(eventType);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
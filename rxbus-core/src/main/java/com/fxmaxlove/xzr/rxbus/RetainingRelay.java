@@ -0,0 +1,174 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.jakewharton.rxrelay2.BehaviorRelay;
+import com.jakewharton.rxrelay2.Relay;
+import com.jakewharton.rxrelay2.ReplayRelay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Observer;
+import io.reactivex.annotations.Nullable;
+
+/**
+ * 为保存事件的 {@link BehaviorRelay}、{@link ReplayRelay} 持有 {@link PooledEvent} 的引用
+ * <p>{@link BehaviorRelay} 只保存最新的事件，新的事件到达后释放上一个；{@link ReplayRelay} 按它自己的个数或时间限制
+ * 丢弃最早的事件，每次 accept 之后通过 {@link ReplayRelay#getValues(Object[])} 得到保存的个数，释放已经不在其中的事件，
+ * 开销与保存的个数成正比。只记录池化的事件和它的序号，没有保存池化的事件、或者 relay 不会丢弃事件时不读取</p>
+ * <p>订阅时在锁内登记回放，回放在锁外进行；有回放进行时要释放的事件推迟到所有回放结束，
+ * 相当于在锁内为回放可能发出的事件 retain，新的订阅者不会收到已经回到池中的事件。
+ * 回放发出的可能是登记之后才 accept 的事件，所以推迟释放而不是只 retain 登记时持有的事件。
+ * 不会丢弃事件的 relay 从不释放，订阅时不加锁</p>
+ * <p>需要 {@link SerializedBatchRelay} 保证 {@link #accept(Object)} 串行调用</p>
+ */
+final class RetainingRelay extends Relay<Object> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Relay<Object> actual;
+    /** 只保存最新的事件，或者 relay 不会丢弃事件时为 null */
+    @Nullable
+    private final ReplayRelay<Object> history;
+    private final boolean latestOnly;
+    /** 读取 {@link #history} 保存的个数时复用的数组，guarded by this */
+    private Object[] probe = new Object[INITIAL_CAPACITY];
+    /** 已经 accept 的事件个数，只在串行化的 accept 中修改 */
+    private long accepted;
+    /** 以下 guarded by this，持有引用的池化事件和它的序号，按序号排列的环形数组 */
+    private Object[] events;
+    private long[] seqs;
+    private int head;
+    /** 只在串行化的 accept 中修改，accept 中可以不加锁读取 */
+    private int size;
+    /** 正在进行的回放个数 */
+    private int replaying;
+    @Nullable
+    private List<Object> deferred;
+
+    RetainingRelay(BehaviorRelay<Object> actual) {
+        this.actual = actual;
+        this.history = null;
+        this.latestOnly = true;
+    }
+
+    /**
+     * @param unbounded {@code ReplayRelay.create()} 创建的 relay 不会丢弃事件，保存的事件一直持有
+     */
+    RetainingRelay(ReplayRelay<Object> actual, boolean unbounded) {
+        this.actual = actual;
+        this.history = unbounded ? null : actual;
+        this.latestOnly = false;
+    }
+
+    @Override
+    public void accept(Object value) {
+        boolean pooled = value instanceof PooledEvent;
+        if (pooled) {
+            ((PooledEvent) value).retain();
+        }
+        actual.accept(value);
+        if (!latestOnly && history == null) {
+            return;
+        }
+        long seq = ++accepted;
+        if (!pooled && size == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (pooled) {
+                add(value, seq);
+            }
+            // 序号不大于 last 的事件已经不在 relay 中
+            long last = latestOnly ? seq - 1 : seq - historySize();
+            while (size > 0 && seqs[head] <= last) {
+                Object event = events[head];
+                events[head] = null;
+                head = (head + 1) & (events.length - 1);
+                size--;
+                release(event);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasObservers() {
+        return actual.hasObservers();
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super Object> observer) {
+        if (!latestOnly && history == null) {
+            actual.subscribe(observer);
+            return;
+        }
+        synchronized (this) {
+            replaying++;
+        }
+        List<Object> released = null;
+        try {
+            actual.subscribe(observer);
+        } finally {
+            synchronized (this) {
+                if (--replaying == 0 && deferred != null) {
+                    released = deferred;
+                    deferred = null;
+                }
+            }
+        }
+        if (released != null) {
+            PooledEvent.releaseAll(released);
+        }
+    }
+
+    /**
+     * guarded by this
+     */
+    private int historySize() {
+        Object[] values = history.getValues(probe);
+        probe = values;
+        int count = 0;
+        while (count < values.length && values[count] != null) {
+            values[count++] = null;
+        }
+        return count;
+    }
+
+    /**
+     * guarded by this
+     */
+    private void add(Object event, long seq) {
+        if (events == null) {
+            events = new Object[INITIAL_CAPACITY];
+            seqs = new long[INITIAL_CAPACITY];
+        } else if (size == events.length) {
+            Object[] grownEvents = new Object[size << 1];
+            long[] grownSeqs = new long[size << 1];
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) & (size - 1);
+                grownEvents[i] = events[index];
+                grownSeqs[i] = seqs[index];
+            }
+            events = grownEvents;
+            seqs = grownSeqs;
+            head = 0;
+        }
+        int index = (head + size) & (events.length - 1);
+        events[index] = event;
+        seqs[index] = seq;
+        size++;
+    }
+
+    /**
+     * guarded by this
+     */
+    private void release(Object event) {
+        if (replaying == 0) {
+            ((PooledEvent) event).release();
+            return;
+        }
+        if (deferred == null) {
+            deferred = new ArrayList<>();
+        }
+        deferred.add(event);
+    }
+}
@@ -0,0 +1,267 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * 异步 post 的实现：每个分发线程一个多生产者单消费者的环形缓冲区
+ * <p>槽位的序号表示状态：等于写入位置时可写，等于写入位置 + 1 时可读，读完后加上容量留给下一圈。
+ * post 只需要一次 CAS、一次普通写和一次 volatile 写，不加锁，也不分配内存。</p>
+ * <p>缓冲区满时分发线程自己（订阅者中）post 的事件不等待，而是先送出缓冲区中更早的事件，
+ * 这些事件会嵌套在当前订阅者的调用中送达</p>
+ * @see AsyncPolicy
+ */
+final class RingDispatcher {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    /** 挂起的分发线程最长的等待时间，防止漏掉唤醒 */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    /** 缓冲区满时 {@link AsyncPolicy.Overflow#BLOCK} 的 post 每次挂起的时间 */
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final BaseBus bus;
+    private final AsyncPolicy policy;
+    private final Ring[] rings;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running = true;
+
+    RingDispatcher(BaseBus bus, AsyncPolicy policy) {
+        this.bus = bus;
+        this.policy = policy;
+        this.rings = new Ring[policy.dispatchers];
+        for (int i = 0; i < rings.length; i++) {
+            rings[i] = new Ring(policy.bufferSize, policy.waitStrategy == AsyncPolicy.WaitStrategy.PARK);
+        }
+        for (int i = 0; i < rings.length; i++) {
+            Thread thread = new Thread(new Dispatch(rings[i]), "rxbus-dispatcher-" + i);
+            thread.setDaemon(true);
+            rings[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    void post(Object event) {
+        boolean barrier = event instanceof DeliveryBarrier;
+        Ring ring = rings.length == 1 ? rings[0]
+                : rings[index((barrier ? ((DeliveryBarrier) event).event : event).getClass())];
+        if (ring.offer(event)) {
+            if (!running) {
+                // stop 之后分发线程可能已经退出，由 post 的线程送出
+                drainStopped(ring);
+            }
+            return;
+        }
+        if (policy.overflow == AsyncPolicy.Overflow.DROP && !barrier) {
+            dropped.incrementAndGet();
+            PooledEvent.releaseIfPooled(event);
+            return;
+        }
+        if (Thread.currentThread() == ring.thread) {
+            // 订阅者中 post，等待自己腾出空位会死锁；在这里依次送出更早的事件腾出空位，不打乱顺序
+            while (!ring.offer(event)) {
+                Object earlier = ring.poll();
+                if (earlier != null) {
+                    dispatch(earlier);
+                }
+            }
+            return;
+        }
+        int idle = 0;
+        while (!ring.offer(event)) {
+            if (!running) {
+                bus.dispatch(event);
+                return;
+            }
+            idle = idle(idle, false, ring);
+        }
+        if (!running) {
+            drainStopped(ring);
+        }
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 分发完缓冲区中的事件后停止分发线程
+     * <p>与 stop 同时 post 的事件可能在分发线程退出之后才进入缓冲区，分发线程退出后由调用线程送出</p>
+     */
+    void stop() {
+        running = false;
+        for (Ring ring : rings) {
+            LockSupport.unpark(ring.thread);
+        }
+        for (Ring ring : rings) {
+            drainStopped(ring);
+        }
+    }
+
+    /**
+     * 等待分发线程退出，之后在当前线程送出缓冲区中剩下的事件；在分发线程中调用时由分发线程自己送出
+     */
+    private void drainStopped(Ring ring) {
+        Thread thread = ring.thread;
+        if (thread == Thread.currentThread()) {
+            return;
+        }
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        // 分发线程已经退出，加锁保证只有一个线程读取缓冲区
+        synchronized (ring) {
+            Object event;
+            while ((event = ring.poll()) != null) {
+                dispatch(event);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(Object event) {
+        try {
+            bus.dispatch(event);
+        } catch (Throwable e) {
+            Exceptions.throwIfFatal(e);
+            RxJavaPlugins.onError(e);
+        }
+    }
+
+    private int index(Class<?> eventType) {
+        int h = eventType.hashCode();
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % rings.length;
+    }
+
+    /**
+     * 分发线程按 {@link AsyncPolicy.WaitStrategy} 等待一次；等待空位的 post 总是依次自旋、yield、挂起，
+     * 避免生产者和分发线程抢 CPU
+     * @param consumer 分发线程等待事件时为 true，可以挂起直到被 post 唤醒
+     * @return 下一次等待的计数
+     */
+    private int idle(int idle, boolean consumer, Ring ring) {
+        AsyncPolicy.WaitStrategy waitStrategy = consumer ? policy.waitStrategy : AsyncPolicy.WaitStrategy.PARK;
+        if (waitStrategy == AsyncPolicy.WaitStrategy.SPIN || idle < SPIN_TRIES) {
+            return idle + 1;
+        }
+        if (waitStrategy == AsyncPolicy.WaitStrategy.YIELD || idle < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+            return idle + 1;
+        }
+        if (!consumer) {
+            LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+            return idle;
+        }
+        ring.sleeping = true;
+        // 设置 sleeping 之后再检查一次，和 offer 中先发布再检查 sleeping 配对
+        if (ring.isEmpty() && running) {
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        }
+        ring.sleeping = false;
+        return idle;
+    }
+
+    private final class Dispatch implements Runnable {
+        private final Ring ring;
+
+        Dispatch(Ring ring) {
+            this.ring = ring;
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            for (;;) {
+                Object event = ring.poll();
+                if (event != null) {
+                    idle = 0;
+                    dispatch(event);
+                } else if (!running) {
+                    return;
+                } else {
+                    idle = idle(idle, true, ring);
+                }
+            }
+        }
+    }
+
+    static final class Ring {
+        private final Object[] slots;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        /** 只有分发线程读写 */
+        private long head;
+        /** 分发线程可能挂起时，发布事件之后检查 {@link #sleeping} */
+        private final boolean signal;
+        volatile boolean sleeping;
+        volatile Thread thread;
+
+        Ring(int capacity, boolean signal) {
+            this.slots = new Object[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            this.signal = signal;
+            for (int i = 0; i < capacity; i++) {
+                sequences.lazySet(i, i);
+            }
+        }
+
+        /**
+         * @return 缓冲区满时返回 false
+         */
+        boolean offer(Object event) {
+            for (;;) {
+                long pos = tail.get();
+                int index = (int) pos & mask;
+                long seq = sequences.get(index);
+                if (seq == pos) {
+                    if (tail.compareAndSet(pos, pos + 1)) {
+                        slots[index] = event;
+                        // volatile 写，之后读取 sleeping 和 RingDispatcher.running 不会被重排到发布之前，
+                        // stop 之后发布的事件一定由 post 的线程发现并送出
+                        sequences.set(index, pos + 1);
+                        if (signal && sleeping) {
+                            LockSupport.unpark(thread);
+                        }
+                        return true;
+                    }
+                } else if (seq < pos) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * 只在分发线程调用，分发线程退出后在 {@link RingDispatcher#drainStopped(Ring)} 中加锁调用
+         */
+        Object poll() {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                return null;
+            }
+            Object event = slots[index];
+            slots[index] = null;
+            sequences.lazySet(index, head + slots.length);
+            head++;
+            return event;
+        }
+
+        boolean isEmpty() {
+            return sequences.get((int) head & mask) != head + 1;
+        }
+    }
+}
@@ -0,0 +1,600 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe;
+import com.fxmaxlove.xzr.rxbus.invoke.PrimitiveInvoker;
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+import com.fxmaxlove.xzr.rxbus.util.RxBusLog;
+import com.jakewharton.rxrelay2.PublishRelay;
+import com.jakewharton.rxrelay2.Relay;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.annotations.Nullable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * 最常用，订阅后，接收事件
+ * http://reactivex.io/RxJava/2.x/javadoc/io/reactivex/subjects/PublishSubject.html
+ */
+public class RxBus extends BaseBus {
+    private static class Holder {
+        private static final RxBus BUS = new RxBus();
+    }
+    private static volatile RxBus defaultBus;
+
+    private final SubscriberRegistry registry = new SubscriberRegistry();
+    private final EventStore stickyEventStore;
+    @Nullable
+    private final StickyPersistence stickyPersistence;
+    private final Map<Class<?>, Function<Object, ?>> conflations;
+
+    /**
+     * 获取RxBus单例
+     *
+     */
+    public static RxBus getDefault() {
+        if (defaultBus == null) {
+            synchronized (RxBus.class) {
+                if (defaultBus == null) {
+                    defaultBus = Holder.BUS;
+                }
+            }
+        }
+        return defaultBus;
+    }
+
+    public RxBus(PublishRelay<Object> publishRelay) {
+        super(publishRelay);
+        stickyEventStore = new EventStore(StickyPolicy.unbounded(), Collections.<Class<?>, StickyPolicy>emptyMap());
+        stickyPersistence = null;
+        conflations = Collections.emptyMap();
+    }
+
+    /**
+     * 只接收订阅后发送的事件
+     * {@link PublishRelay}
+     */
+    public RxBus() {
+        this(PublishRelay.create());
+    }
+
+    /**
+     * 按事件类型分发
+     * {@link BaseBus#BaseBus(RelayFactory)}
+     */
+    public RxBus(@NonNull RelayFactory relayFactory) {
+        super(relayFactory);
+        stickyEventStore = new EventStore(StickyPolicy.unbounded(), Collections.<Class<?>, StickyPolicy>emptyMap());
+        stickyPersistence = null;
+        conflations = Collections.emptyMap();
+    }
+
+    RxBus(Builder builder) {
+        super(builder.relay(), builder.relayFactory(), builder.shardCount, builder.shardKeySelector);
+        stickyEventStore = new EventStore(builder.defaultStickyPolicy, builder.stickyPolicies);
+        stickyPersistence = builder.stickyPersistence;
+        if (stickyPersistence != null) {
+            stickyPersistence.open(stickyEventStore);
+        }
+        conflations = new HashMap<>(builder.conflations);
+        if (builder.asyncPolicy != null) {
+            startAsyncPost(builder.asyncPolicy);
+        }
+    }
+
+    /**
+     * 按事件类型分发的RxBus，post 的开销只与该事件类型的订阅者有关
+     */
+    public static RxBus typeIndexed() {
+        return new Builder().typeIndexed().build();
+    }
+
+    public <T> Observable<T> toObservable(Class<T> eventType) {
+        return observeOn(ofType(eventType), eventType, EventThread.getScheduler(EventThread.MAIN));
+    }
+
+    public <T> Observable<T> toObservable(Class<T> eventType,Scheduler scheduler) {
+        return observeOn(ofType(eventType), eventType, scheduler);
+    }
+
+    public <T> Observable<T> toStickyObservable(Class<T> eventType) {
+        return observeOn(ofStickyType(eventType), eventType, EventThread.getScheduler(EventThread.MAIN));
+    }
+
+    public <T> Observable<T> toStickyObservable(Class<T> eventType,Scheduler scheduler) {
+        return observeOn(ofStickyType(eventType), eventType, scheduler);
+    }
+
+    /**
+     * 在 {@code scheduler} 上接收事件，还没有送达的事件中 key 相同的只保留最新的一个
+     * @param keySelector 从事件中取出 key，与事件类型一起组成合并的 key
+     */
+    public <T> Observable<T> toConflatedObservable(Class<T> eventType, Scheduler scheduler,
+                                                   @NonNull Function<? super T, ?> keySelector) {
+        ObjectHelper.requireNonNull(keySelector, "keySelector == null");
+        return new ObservableConflate<>(ofType(eventType), scheduler, keySelector);
+    }
+
+    /**
+     * 切换到接收线程，{@link Builder#conflate(Class, Function)} 配置过的类型使用合并的方式；
+     * 排队的 {@link PooledEvent} 持有一个引用，下游处理完或者取消订阅时释放
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Observable<T> observeOn(Observable<T> observable, Class<?> eventType, Scheduler scheduler) {
+        Function<Object, ?> keySelector = conflations.get(eventType);
+        if (keySelector == null) {
+            if (!PooledEvent.mayBePooled(eventType)) {
+                return observable.observeOn(scheduler);
+            }
+            return new ObservableRetainingObserveOn<>(observable, scheduler);
+        }
+        return new ObservableConflate<>(observable, scheduler,
+                keySelector == Builder.BY_TYPE ? null : (Function<? super T, ?>) keySelector);
+    }
+
+    /**
+     * 发粘滞事件
+     * <p>按该类型的 {@link StickyPolicy} 保留</p>
+     *
+     * @param event 粘滞事件
+     */
+    public void postSticky(@NonNull Object event) {
+        ObjectHelper.requireNonNull(event, "event == null");
+        if (stickyPersistence != null) {
+            stickyPersistence.restore(event.getClass());
+            stickyEventStore.add(event);
+            stickyPersistence.add(event);
+        } else {
+            stickyEventStore.add(event);
+        }
+        post(event);
+    }
+
+    /**
+     * 获取粘滞事件列表
+     * <p>返回调用时的只读快照，不包含已过期的事件。其中的 {@link PooledEvent} 已经为调用者 retain，
+     * 用完之后要逐个 {@link PooledEvent#release()}，否则不会回到池中</p>
+     */
+    @Nullable
+    public <T> List<T> getSticky(Class<T> eventType) {
+        if (stickyPersistence != null) {
+            stickyPersistence.restore(eventType);
+        }
+        return stickyEventStore.get(eventType);
+    }
+
+    /**
+     * 移除粘滞事件
+     *
+     */
+    public void removeSticky(@NonNull Object event) {
+        ObjectHelper.requireNonNull(event, "event == null");
+        if (stickyPersistence != null) {
+            stickyPersistence.restore(event.getClass());
+            stickyPersistence.remove(event);
+        }
+        stickyEventStore.remove(event);
+    }
+
+    /**
+     * 移除某个类型的所有粘滞事件
+     */
+    public void removeSticky(Class<?> eventType) {
+        if (stickyPersistence != null) {
+            stickyPersistence.remove(eventType);
+        }
+        stickyEventStore.remove(eventType);
+    }
+
+    /**
+     * 移除所有粘滞事件
+     */
+    public void clearSticky() {
+        if (stickyPersistence != null) {
+            stickyPersistence.clear();
+        }
+        stickyEventStore.clear();
+    }
+
+    /**
+     * 获取某一类型粘滞事件的被观察者
+     */
+    public <T> Observable<T> ofStickyType(Class<T> eventType) {
+        if (stickyPersistence != null) {
+            stickyPersistence.restore(eventType);
+        }
+        if (PooledEvent.mayBePooled(eventType)) {
+            return pooledSticky(eventType).mergeWith(ofType(eventType));
+        }
+        List<T> stickyEvents = stickyEventStore.get(eventType);
+        if (stickyEvents != null && stickyEvents.size() > 0) {
+            return Observable.fromIterable(stickyEvents).mergeWith(ofType(eventType));
+        }
+        return ofType(eventType);
+    }
+
+    /**
+     * 订阅时才读取快照，快照中的 {@link PooledEvent} 在回放结束或者取消订阅时释放
+     */
+    private <T> Observable<T> pooledSticky(final Class<T> eventType) {
+        return Observable.using(new Callable<List<T>>() {
+            @Override
+            public List<T> call() throws Exception {
+                List<T> stickyEvents = stickyEventStore.get(eventType);
+                return stickyEvents == null ? Collections.<T>emptyList() : stickyEvents;
+            }
+        }, new Function<List<T>, ObservableSource<T>>() {
+            @Override
+            public ObservableSource<T> apply(List<T> stickyEvents) throws Exception {
+                return Observable.fromIterable(stickyEvents);
+            }
+        }, new Consumer<List<T>>() {
+            @Override
+            public void accept(List<T> stickyEvents) throws Exception {
+                PooledEvent.releaseAll(stickyEvents);
+            }
+        });
+    }
+
+    /**
+     * 解除订阅所有的事件，清空所有粘滞事件
+     */
+    public void reset() {
+        registry.clear();
+        clearSticky();
+    }
+
+    @Override
+    void expungeStaleSubscribers() {
+        registry.expunge();
+    }
+
+    /**
+     * 判断是否注册
+     */
+    public boolean isRegistered(@NonNull Object subscriber) {
+        ObjectHelper.requireNonNull(subscriber, "subscriber == null");
+        return registry.isRegistered(subscriber);
+    }
+
+    /**
+     * 注解方式的注册方式
+     * <p>同步注册，返回时所有订阅方法都已经生效，之后 post 的事件不会丢失。
+     * 优先使用 rxbus-compiler 生成的索引，没有索引时退回到反射扫描，
+     * 每个订阅者类只解析一次</p>
+     */
+    public void register(@NonNull Object subscriber) {
+        ObjectHelper.requireNonNull(subscriber, "subscriber == null");
+        SubscriberRegistry.Entry entry = registry.register(subscriber);
+        if (entry == null) {
+            return;
+        }
+        for (SubscriberMethod method : SubscriberMethodFinder.find(subscriber.getClass())) {
+            addSubscriptionMethod(entry, method);
+        }
+        RxBusLog.d("rxbus--register", "register complete");
+    }
+
+    /**
+     * 在 {@link Schedulers#io()} 上注册，订阅返回的 {@link Completable} 后开始注册，完成时所有订阅方法都已经生效
+     */
+    public Completable registerAsync(@NonNull final Object subscriber) {
+        ObjectHelper.requireNonNull(subscriber, "subscriber == null");
+        return Completable.fromAction(new Action() {
+            @Override
+            public void run() throws Exception {
+                register(subscriber);
+            }
+        }).subscribeOn(Schedulers.io());
+    }
+
+    private void addSubscriptionMethod(final SubscriberRegistry.Entry entry, final SubscriberMethod method) {
+        if (method.primitiveInvoker != null) {
+            entry.disposables.add(subscribeChannel(entry, method));
+            if (RxBusLog.isDebugEnabled()) {
+                RxBusLog.d("rxbus--method", method + " has Registered to channel " + method.channel);
+            }
+            return;
+        }
+        if (method.isSticky && !method.stickyPolicy.isUnbounded()) {
+            stickyEventStore.setPolicyIfAbsent(method.eventType, method.stickyPolicy);
+        }
+        final BusMetrics metrics = getMetrics();
+        final SubscriberMetrics subscriberMetrics = metrics == null ? null : metrics.subscriber(method.toString());
+        Disposable subscribe = subscribeMethod(method, subscriberMetrics,
+                new Consumer<Object>() {
+                    @Override
+                    @SuppressWarnings("all")
+                    public void accept(Object obj) throws Exception {
+                        Object subscriber = entry.get();
+                        if (subscriber == null) {
+                            return;
+                        }
+                        long start = subscriberMetrics == null ? 0 : System.nanoTime();
+                        try {
+                            method.invoker.invoke(subscriber, obj);
+                        } catch (IllegalAccessException e) {
+                            RxBusLog.e("rxbus--method", method + " is not accessible", e);
+                        } catch (InvocationTargetException e) {
+                            RxBusLog.e("rxbus--method", method + " threw", e.getCause());
+                        }
+                        if (subscriberMetrics != null) {
+                            metrics.onInvoked(subscriberMetrics, obj, System.nanoTime() - start);
+                        }
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        RxBusLog.e("rxbus--method", method + " terminated", throwable);
+                    }
+                });
+        entry.disposables.add(subscribe);
+        if (RxBusLog.isDebugEnabled()) {
+            RxBusLog.d("rxbus--method", method + " has Registered");
+        }
+    }
+
+    /**
+     * 通道方法注册到同名的 {@link IntChannel}、{@link LongChannel}、{@link DoubleChannel}，
+     * {@link EventThread#TRAMPOLINE} 在 post 的线程调用；为了不装箱，不记录 {@link BusMetrics}
+     */
+    private Disposable subscribeChannel(final SubscriberRegistry.Entry entry, final SubscriberMethod method) {
+        final PrimitiveInvoker invoker = method.primitiveInvoker;
+        Scheduler scheduler = method.executor.isEmpty() && method.observeOnThread == EventThread.TRAMPOLINE
+                ? null : method.scheduler();
+        if (method.eventType == Integer.class) {
+            return intChannel(method.channel).subscribe(new IntChannel.Listener() {
+                @Override
+                public void onValue(int value) throws Exception {
+                    Object subscriber = entry.get();
+                    if (subscriber != null) {
+                        try {
+                            invoker.invokeInt(subscriber, value);
+                        } catch (InvocationTargetException e) {
+                            RxBusLog.e("rxbus--method", method + " threw", e.getCause());
+                        }
+                    }
+                }
+            }, scheduler);
+        }
+        if (method.eventType == Long.class) {
+            return longChannel(method.channel).subscribe(new LongChannel.Listener() {
+                @Override
+                public void onValue(long value) throws Exception {
+                    Object subscriber = entry.get();
+                    if (subscriber != null) {
+                        try {
+                            invoker.invokeLong(subscriber, value);
+                        } catch (InvocationTargetException e) {
+                            RxBusLog.e("rxbus--method", method + " threw", e.getCause());
+                        }
+                    }
+                }
+            }, scheduler);
+        }
+        return doubleChannel(method.channel).subscribe(new DoubleChannel.Listener() {
+            @Override
+            public void onValue(double value) throws Exception {
+                Object subscriber = entry.get();
+                if (subscriber != null) {
+                    try {
+                        invoker.invokeDouble(subscriber, value);
+                    } catch (InvocationTargetException e) {
+                        RxBusLog.e("rxbus--method", method + " threw", e.getCause());
+                    }
+                }
+            }
+        }, scheduler);
+    }
+
+    /**
+     * 订阅方法的事件流，通过 {@link DeliveryQueue} 在 {@link SubscriberMethod#observeOnThread} 上接收，
+     * 注册之后 post 到送达不再分配内存
+     * @param metrics 开启统计时记录排队个数和送达延迟，否则为 null
+     */
+    Disposable subscribeMethod(SubscriberMethod method, @Nullable SubscriberMetrics metrics,
+                               Consumer<Object> onNext, Consumer<Throwable> onError) {
+        Observable<?> observable = source(method);
+        Scheduler scheduler = method.scheduler();
+        if (conflations.containsKey(method.eventType)) {
+            return observeOn(observable, method.eventType, scheduler).subscribe(onNext, onError);
+        }
+        DeliveryQueue queue = new DeliveryQueue(scheduler, metrics, onNext, onError);
+        observable.subscribe(queue);
+        return queue;
+    }
+
+    /**
+     * 订阅方法接收的事件，设置了 {@link SubscriberMethod#topic} 时只接收该主题的事件，忽略 isSticky；
+     * 在切换线程之前应用 {@link SubscriberMethod#rateControl}
+     */
+    Observable<?> source(SubscriberMethod method) {
+        Observable<?> observable;
+        if (!method.topic.isEmpty()) {
+            observable = ofTopic(method.topic, method.eventType);
+        } else {
+            observable = method.isSticky ? ofStickyType(method.eventType) : ofType(method.eventType);
+        }
+        return method.rateControl.isNone() ? observable : method.rateControl.apply(observable, method.eventType);
+    }
+
+    /**
+     * 解除注册
+     */
+    public void unregister(@NonNull Object subscriber) {
+        ObjectHelper.requireNonNull(subscriber, "subscriber == null");
+        registry.unregister(subscriber);
+    }
+
+    /**
+     * RxBus配置
+     */
+    public static final class Builder {
+        static final Function<Object, Object> BY_TYPE = new Function<Object, Object>() {
+            @Override
+            public Object apply(Object event) throws Exception {
+                return event.getClass();
+            }
+        };
+
+        private RelayFactory relayFactory;
+        private int shardCount;
+        private ShardKeySelector shardKeySelector;
+        private RelayFactory parallelFanOut;
+        private AsyncPolicy asyncPolicy;
+        private StickyPersistence stickyPersistence;
+        private final Map<Class<?>, Function<Object, ?>> conflations = new HashMap<>();
+        private StickyPolicy defaultStickyPolicy = StickyPolicy.unbounded();
+        private final Map<Class<?>, StickyPolicy> stickyPolicies = new HashMap<>();
+
+        /**
+         * 按事件类型分发，{@link BaseBus#BaseBus(RelayFactory)}
+         */
+        public Builder typeIndexed() {
+            if (shardCount > 0) {
+                throw new IllegalStateException("typeIndexed and sharded can not be used together");
+            }
+            relayFactory = new RelayFactory() {
+                @Override
+                public Relay<Object> create() {
+                    return PublishRelay.create();
+                }
+            };
+            return this;
+        }
+
+        /**
+         * 按事件类分成 {@code shardCount} 个分片，{@link BaseBus#BaseBus(int, ShardKeySelector)}；
+         * 订阅非 final 类型的订阅者仍然订阅所有分片
+         */
+        public Builder sharded(int shardCount) {
+            return sharded(shardCount, null);
+        }
+
+        /**
+         * 按 {@code shardKeySelector} 的结果分成 {@code shardCount} 个分片，key 相同的事件保持发送顺序
+         */
+        public Builder sharded(int shardCount, @Nullable ShardKeySelector shardKeySelector) {
+            ObjectHelper.verifyPositive(shardCount, "shardCount");
+            if (relayFactory != null) {
+                throw new IllegalStateException("typeIndexed and sharded can not be used together");
+            }
+            this.shardCount = shardCount;
+            this.shardKeySelector = shardKeySelector;
+            return this;
+        }
+
+        /**
+         * 订阅者达到 {@code minSubscribers} 个时在 {@link Schedulers#computation()} 上并行送达，
+         * {@link BaseBus#parallelFanOut(int, Scheduler)}
+         */
+        public Builder parallelFanOut(int minSubscribers) {
+            return parallelFanOut(minSubscribers, Schedulers.computation());
+        }
+
+        /**
+         * 订阅者达到 {@code minSubscribers} 个时在 {@code scheduler} 上并行送达，可以与 typeIndexed、sharded 一起使用
+         */
+        public Builder parallelFanOut(int minSubscribers, @NonNull Scheduler scheduler) {
+            parallelFanOut = BaseBus.parallelFanOut(minSubscribers, scheduler);
+            return this;
+        }
+
+        /**
+         * 异步 post，{@link BaseBus#startAsyncPost(AsyncPolicy)}
+         */
+        public Builder async(@NonNull AsyncPolicy policy) {
+            ObjectHelper.requireNonNull(policy, "policy == null");
+            asyncPolicy = policy;
+            return this;
+        }
+
+        /**
+         * 保存粘滞事件，下次启动时恢复，{@link StickyPersistence}
+         */
+        public Builder persistSticky(@NonNull StickyPersistence persistence) {
+            ObjectHelper.requireNonNull(persistence, "persistence == null");
+            stickyPersistence = persistence;
+            return this;
+        }
+
+        /**
+         * 没有单独配置的类型使用的粘滞事件保留策略，默认 {@link StickyPolicy#unbounded()}
+         */
+        public Builder defaultStickyPolicy(@NonNull StickyPolicy policy) {
+            ObjectHelper.requireNonNull(policy, "policy == null");
+            defaultStickyPolicy = policy;
+            return this;
+        }
+
+        /**
+         * 某个类型的粘滞事件保留策略，优先于 {@link RxSubscribe} 上的配置
+         */
+        public Builder stickyPolicy(@NonNull Class<?> eventType, @NonNull StickyPolicy policy) {
+            ObjectHelper.requireNonNull(eventType, "eventType == null");
+            ObjectHelper.requireNonNull(policy, "policy == null");
+            stickyPolicies.put(eventType, policy);
+            return this;
+        }
+
+        /**
+         * 合并该类型的事件：每个订阅者还没有收到的事件中，同一事件类型只保留最新的一个
+         */
+        public Builder conflate(@NonNull Class<?> eventType) {
+            ObjectHelper.requireNonNull(eventType, "eventType == null");
+            conflations.put(eventType, BY_TYPE);
+            return this;
+        }
+
+        /**
+         * 合并该类型的事件：每个订阅者还没有收到的事件中，事件类型和 {@code keySelector} 结果都相同的只保留最新的一个
+         * <p>例如按下载任务 id 合并进度事件，慢的订阅者只会看到每个任务的最新进度</p>
+         */
+        @SuppressWarnings("unchecked")
+        public <T> Builder conflate(@NonNull Class<T> eventType, @NonNull Function<? super T, ?> keySelector) {
+            ObjectHelper.requireNonNull(eventType, "eventType == null");
+            ObjectHelper.requireNonNull(keySelector, "keySelector == null");
+            conflations.put(eventType, (Function<Object, ?>) keySelector);
+            return this;
+        }
+
+        /**
+         * 不按类型、不分片时使用的 relay
+         */
+        private Relay<Object> relay() {
+            if (relayFactory != null || shardCount > 0) {
+                return null;
+            }
+            return parallelFanOut == null ? PublishRelay.<Object>create() : parallelFanOut.create();
+        }
+
+        /**
+         * 按类型或分片时创建 relay，分片时为 null 使用 {@link PublishRelay}
+         */
+        private RelayFactory relayFactory() {
+            if (relayFactory == null && shardCount == 0) {
+                return null;
+            }
+            return parallelFanOut == null ? relayFactory : parallelFanOut;
+        }
+
+        public RxBus build() {
+            return new RxBus(this);
+        }
+    }
+}
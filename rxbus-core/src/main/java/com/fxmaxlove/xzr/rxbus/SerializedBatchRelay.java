@@ -0,0 +1,116 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.jakewharton.rxrelay2.Relay;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.reactivex.Observer;
+
+/**
+ * 与 {@code Relay.toSerialized()} 相同的串行化，另外支持 {@link #acceptAll(Collection)}：
+ * 一批事件只获取一次锁，并且连续发送，其它线程的事件排在这一批之后
+ * <p>排队的 {@link PooledEvent} 在发送之前持有一个引用，调用 accept 的线程返回后事件仍然有效</p>
+ */
+final class SerializedBatchRelay<T> extends Relay<T> {
+
+    private final Relay<T> actual;
+    /** guarded by this */
+    private boolean emitting;
+    /** guarded by this */
+    private List<T> queue;
+
+    private SerializedBatchRelay(Relay<T> actual) {
+        this.actual = actual;
+    }
+
+    static <T> SerializedBatchRelay<T> wrap(Relay<T> relay) {
+        if (relay instanceof SerializedBatchRelay) {
+            return (SerializedBatchRelay<T>) relay;
+        }
+        return new SerializedBatchRelay<>(relay);
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super T> observer) {
+        actual.subscribe(observer);
+    }
+
+    @Override
+    public void accept(T value) {
+        synchronized (this) {
+            if (emitting) {
+                enqueue(value);
+                return;
+            }
+            emitting = true;
+        }
+        emit(value);
+        emitLoop();
+    }
+
+    void acceptAll(Collection<? extends T> values) {
+        synchronized (this) {
+            if (emitting) {
+                for (T value : values) {
+                    enqueue(value);
+                }
+                return;
+            }
+            emitting = true;
+        }
+        for (T value : values) {
+            emit(value);
+        }
+        emitLoop();
+    }
+
+    private void enqueue(T value) {
+        PooledEvent.retainIfPooled(value);
+        List<T> q = queue;
+        if (q == null) {
+            q = new ArrayList<>(4);
+            queue = q;
+        }
+        q.add(value);
+    }
+
+    private void emitLoop() {
+        for (;;) {
+            List<T> q;
+            synchronized (this) {
+                q = queue;
+                if (q == null) {
+                    emitting = false;
+                    return;
+                }
+                queue = null;
+            }
+            for (T value : q) {
+                emit(value);
+                PooledEvent.releaseIfPooled(value);
+            }
+        }
+    }
+
+    /**
+     * {@link DeliveryBarrier} 不送到订阅者，{@link FanOutRelay} 排在每个订阅者的队列后面，其它 relay 同步送达，到这里已经完成
+     */
+    private void emit(T value) {
+        if (value instanceof DeliveryBarrier) {
+            DeliveryBarrier barrier = (DeliveryBarrier) value;
+            if (actual instanceof FanOutRelay) {
+                ((FanOutRelay<?>) actual).barrier(barrier);
+            }
+            barrier.arrive();
+            return;
+        }
+        actual.accept(value);
+    }
+
+    @Override
+    public boolean hasObservers() {
+        return actual.hasObservers();
+    }
+}
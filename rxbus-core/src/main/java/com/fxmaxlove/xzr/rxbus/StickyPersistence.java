@@ -0,0 +1,554 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.util.RxBusLog;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.annotations.Nullable;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 粘滞事件的持久化，通过 {@link RxBus.Builder#persistSticky(StickyPersistence)} 开启
+ * <p>注册了 {@link EventCodec} 的事件类（按 {@code event.getClass()} 匹配）的 postSticky、removeSticky、clearSticky
+ * 在后台线程编码后追加到内存映射的日志文件，日志超过 {@link Builder#compactThreshold(int)} 时把仍然保留的事件写成快照，
+ * 清空日志。事件交给 postSticky 之后不应再修改，removeSticky(event) 按 {@code equals} 比较解码后的事件。</p>
+ * <p>启动时后台线程读取快照和日志，只建立每个类型的记录列表，不解码；某个类型第一次 getSticky、ofStickyType
+ * 或 postSticky 时才解码该类型的记录，恢复到内存中。恢复的事件保留原来的发送时间，按 {@link StickyPolicy} 过期。</p>
+ * <pre>
+ * RxBus bus = new RxBus.Builder()
+ *         .persistSticky(new StickyPersistence.Builder(context.getFilesDir())
+ *                 .codec(LoginState.class, loginStateCodec)
+ *                 .build())
+ *         .build();
+ * </pre>
+ */
+public final class StickyPersistence implements Closeable {
+
+    private static final int MAGIC = 0x52785374;
+    private static final int VERSION = 1;
+    /** magic、version、generation */
+    private static final int FILE_HEADER_SIZE = 16;
+    /** length、typeId、op、time */
+    private static final int RECORD_HEADER_SIZE = 17;
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_REMOVE_TYPE = 3;
+    private static final byte OP_CLEAR = 4;
+    private static final int LOG_CHUNK = 64 * 1024;
+
+    private final File logFile;
+    private final File snapshotFile;
+    private final int compactThreshold;
+    private final Map<Class<?>, Registration> byType;
+    private final Map<Integer, Registration> byId;
+    private final ExecutorService writer;
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    /** 以下只在写线程使用 */
+    private RandomAccessFile log;
+    private MappedByteBuffer logBuffer;
+    private int logEnd;
+    private long generation;
+    private ByteBuffer encodeBuffer = ByteBuffer.allocate(256);
+
+    /** 文件中保存的事件，按类型 id，guarded by this */
+    private final Map<Integer, List<Record>> records = new HashMap<>();
+    /** 已经恢复到内存的类型，guarded by this */
+    private final Set<Class<?>> restored = new HashSet<>();
+    /** guarded by this */
+    private boolean restoredAll;
+    private volatile EventStore store;
+    private volatile boolean closed;
+
+    private StickyPersistence(Builder builder) {
+        this.logFile = new File(builder.directory, builder.name + ".log");
+        this.snapshotFile = new File(builder.directory, builder.name + ".snapshot");
+        this.compactThreshold = builder.compactThreshold;
+        this.byType = new HashMap<>(builder.registrations);
+        this.byId = new HashMap<>();
+        for (Registration registration : byType.values()) {
+            byId.put(registration.id, registration);
+        }
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "rxbus-sticky");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 在 bus 的构造方法中调用，后台开始读取文件
+     */
+    synchronized void open(EventStore store) {
+        if (this.store != null) {
+            throw new IllegalStateException("StickyPersistence is already used by another bus");
+        }
+        this.store = store;
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    load();
+                } catch (IOException e) {
+                    RxBusLog.e("rxbus--sticky", "load failed, starting empty", e);
+                    synchronized (StickyPersistence.this) {
+                        records.clear();
+                    }
+                    try {
+                        resetLog();
+                    } catch (IOException ex) {
+                        RxBusLog.e("rxbus--sticky", "can not write " + logFile, ex);
+                    }
+                } finally {
+                    loaded.countDown();
+                }
+            }
+        });
+    }
+
+    /**
+     * 等待之前的写入完成，关闭之后直接返回
+     */
+    public void flush() {
+        if (closed) {
+            return;
+        }
+        try {
+            writer.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (logBuffer != null) {
+                        logBuffer.force();
+                    }
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            RxBusLog.e("rxbus--sticky", "flush failed", e.getCause());
+        } catch (RejectedExecutionException ignore) {
+            // 与 close 同时调用，写线程已经停止
+        }
+    }
+
+    /**
+     * 写入之前的事件后关闭文件，之后的操作不再保存，bus 中的粘滞事件不受影响
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (log != null) {
+            logBuffer.force();
+            log.close();
+        }
+    }
+
+    /**
+     * 第一次访问 {@code eventType} 时把文件中的事件恢复到内存
+     */
+    void restore(Class<?> eventType) {
+        Registration registration = byType.get(eventType);
+        if (registration == null) {
+            return;
+        }
+        synchronized (this) {
+            if (restoredAll || restored.contains(eventType)) {
+                return;
+            }
+        }
+        awaitLoaded();
+        synchronized (this) {
+            if (restoredAll || !restored.add(eventType)) {
+                return;
+            }
+            List<Record> list = records.get(registration.id);
+            if (list == null) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (Record record : list) {
+                Object event = decode(registration, record.payload);
+                if (event != null) {
+                    store.restore(event, Math.max(0, now - record.time));
+                }
+            }
+        }
+    }
+
+    void add(Object event) {
+        enqueue(OP_ADD, event, event.getClass());
+    }
+
+    void remove(Object event) {
+        enqueue(OP_REMOVE, event, event.getClass());
+    }
+
+    void remove(Class<?> eventType) {
+        if (byType.containsKey(eventType)) {
+            synchronized (this) {
+                restored.add(eventType);
+            }
+            enqueue(OP_REMOVE_TYPE, null, eventType);
+        }
+    }
+
+    void clear() {
+        synchronized (this) {
+            restoredAll = true;
+        }
+        enqueue(OP_CLEAR, null, null);
+    }
+
+    private void enqueue(final byte op, @Nullable final Object event, @Nullable Class<?> eventType) {
+        final Registration registration = eventType == null ? null : byType.get(eventType);
+        if (closed || eventType != null && registration == null) {
+            return;
+        }
+        final long time = System.currentTimeMillis();
+        // 写线程编码之前 PooledEvent 不能回到池中
+        PooledEvent.retainIfPooled(event);
+        try {
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        write(op, registration, event, time);
+                    } catch (Exception e) {
+                        RxBusLog.e("rxbus--sticky", "write failed: " + event, e);
+                    } finally {
+                        PooledEvent.releaseIfPooled(event);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 与 close 同时调用，写线程已经停止，不再保存
+            PooledEvent.releaseIfPooled(event);
+        } catch (RuntimeException e) {
+            PooledEvent.releaseIfPooled(event);
+            throw e;
+        }
+    }
+
+    private void awaitLoaded() {
+        try {
+            loaded.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 写线程
+     */
+    private void load() throws IOException {
+        if (snapshotFile.length() >= FILE_HEADER_SIZE) {
+            RandomAccessFile snapshot = new RandomAccessFile(snapshotFile, "r");
+            try {
+                MappedByteBuffer buffer = snapshot.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, snapshot.length());
+                if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION) {
+                    generation = buffer.getLong(8);
+                    scan(buffer);
+                }
+            } finally {
+                snapshot.close();
+            }
+        }
+        log = new RandomAccessFile(logFile, "rw");
+        long length = log.length();
+        if (length >= FILE_HEADER_SIZE) {
+            logBuffer = log.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            // 日志的 generation 和快照不同时，日志中的操作已经合并到快照中
+            if (logBuffer.getInt(0) == MAGIC && logBuffer.getInt(4) == VERSION && logBuffer.getLong(8) == generation) {
+                logEnd = scan(logBuffer);
+                // 清除最后一条没写完的记录留下的数据
+                for (int i = logEnd; i < length; i++) {
+                    logBuffer.put(i, (byte) 0);
+                }
+                return;
+            }
+        }
+        resetLog();
+    }
+
+    /**
+     * @return 最后一条完整记录的结尾
+     */
+    private int scan(ByteBuffer buffer) {
+        int position = FILE_HEADER_SIZE;
+        int limit = buffer.limit();
+        while (position + RECORD_HEADER_SIZE <= limit) {
+            int length = buffer.getInt(position);
+            if (length < RECORD_HEADER_SIZE || position + length > limit) {
+                break;
+            }
+            byte[] payload = new byte[length - RECORD_HEADER_SIZE];
+            ByteBuffer source = buffer.duplicate();
+            source.position(position + RECORD_HEADER_SIZE);
+            source.get(payload);
+            apply(buffer.get(position + 8), buffer.getInt(position + 4), buffer.getLong(position + 9), payload, null);
+            position += length;
+        }
+        return position;
+    }
+
+    /**
+     * 写线程，更新 {@link #records}
+     * @param event 已知的事件，REMOVE 时用于比较，为 null 时从 payload 解码
+     */
+    private synchronized void apply(byte op, int typeId, long time, byte[] payload, @Nullable Object event) {
+        if (op == OP_CLEAR) {
+            records.clear();
+            return;
+        }
+        Registration registration = byId.get(typeId);
+        if (registration == null) {
+            return;
+        }
+        if (op == OP_REMOVE_TYPE) {
+            records.remove(typeId);
+            return;
+        }
+        List<Record> list = records.get(typeId);
+        if (op == OP_ADD) {
+            if (list == null) {
+                list = new ArrayList<>();
+                records.put(typeId, list);
+            }
+            list.add(new Record(time, payload));
+            StickyPolicy policy = store.policyOf(registration.eventType);
+            if (policy.maxCount > 0 && list.size() > policy.maxCount) {
+                list.remove(0);
+            }
+        } else if (op == OP_REMOVE && list != null) {
+            Object removed = event != null ? event : decode(registration, payload);
+            for (Iterator<Record> it = list.iterator(); it.hasNext(); ) {
+                Object e = decode(registration, it.next().payload);
+                if (e != null && e.equals(removed)) {
+                    it.remove();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 写线程
+     */
+    @SuppressWarnings("unchecked")
+    private void write(byte op, @Nullable Registration registration, @Nullable Object event, long time) throws Exception {
+        byte[] payload = new byte[0];
+        if (event != null) {
+            for (;;) {
+                encodeBuffer.clear();
+                try {
+                    ((EventCodec<Object>) registration.codec).encode(event, encodeBuffer);
+                    break;
+                } catch (BufferOverflowException e) {
+                    encodeBuffer = ByteBuffer.allocate(encodeBuffer.capacity() * 2);
+                }
+            }
+            encodeBuffer.flip();
+            payload = new byte[encodeBuffer.remaining()];
+            encodeBuffer.get(payload);
+        }
+        int typeId = registration == null ? 0 : registration.id;
+        append(op, typeId, time, payload);
+        apply(op, typeId, time, payload, event);
+        if (logEnd > compactThreshold) {
+            compact();
+        }
+    }
+
+    private void append(byte op, int typeId, long time, byte[] payload) throws IOException {
+        int length = RECORD_HEADER_SIZE + payload.length;
+        if (logEnd + length > logBuffer.capacity()) {
+            logBuffer = log.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    (logEnd + length + LOG_CHUNK) / LOG_CHUNK * LOG_CHUNK);
+        }
+        int start = logEnd;
+        logBuffer.putInt(start + 4, typeId);
+        logBuffer.put(start + 8, op);
+        logBuffer.putLong(start + 9, time);
+        ByteBuffer target = logBuffer.duplicate();
+        target.position(start + RECORD_HEADER_SIZE);
+        target.put(payload);
+        // 长度最后写，没写完的记录读取时被忽略
+        logBuffer.putInt(start, length);
+        logEnd = start + length;
+    }
+
+    /**
+     * 保留的事件写成新一代的快照，再清空日志
+     */
+    private void compact() throws IOException {
+        long now = System.currentTimeMillis();
+        ByteBuffer buffer;
+        synchronized (this) {
+            int size = FILE_HEADER_SIZE;
+            for (List<Record> list : records.values()) {
+                for (Record record : list) {
+                    size += RECORD_HEADER_SIZE + record.payload.length;
+                }
+            }
+            buffer = ByteBuffer.allocate(size);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(generation + 1);
+            for (Map.Entry<Integer, List<Record>> entry : records.entrySet()) {
+                StickyPolicy policy = store.policyOf(byId.get(entry.getKey()).eventType);
+                for (Record record : entry.getValue()) {
+                    if (policy.ttlMillis > 0 && record.time + policy.ttlMillis <= now) {
+                        continue;
+                    }
+                    buffer.putInt(RECORD_HEADER_SIZE + record.payload.length).putInt(entry.getKey())
+                            .put(OP_ADD).putLong(record.time).put(record.payload);
+                }
+            }
+            buffer.flip();
+        }
+        File tmp = new File(snapshotFile.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tmp);
+        try {
+            out.getChannel().write(buffer);
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(snapshotFile) && !(snapshotFile.delete() && tmp.renameTo(snapshotFile))) {
+            RxBusLog.e("rxbus--sticky", "can not replace " + snapshotFile, null);
+            return;
+        }
+        generation++;
+        resetLog();
+    }
+
+    private void resetLog() throws IOException {
+        if (log == null) {
+            log = new RandomAccessFile(logFile, "rw");
+        }
+        log.setLength(0);
+        logBuffer = log.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, LOG_CHUNK);
+        logBuffer.putInt(0, MAGIC);
+        logBuffer.putInt(4, VERSION);
+        logBuffer.putLong(8, generation);
+        logEnd = FILE_HEADER_SIZE;
+    }
+
+    @Nullable
+    private static Object decode(Registration registration, byte[] payload) {
+        try {
+            return registration.codec.decode(ByteBuffer.wrap(payload));
+        } catch (Exception e) {
+            RxBusLog.e("rxbus--sticky", "decode failed: " + registration.eventType.getName(), e);
+            return null;
+        }
+    }
+
+    private static final class Record {
+        /** {@link System#currentTimeMillis()} */
+        final long time;
+        final byte[] payload;
+
+        Record(long time, byte[] payload) {
+            this.time = time;
+            this.payload = payload;
+        }
+    }
+
+    private static final class Registration {
+        final int id;
+        final Class<?> eventType;
+        final EventCodec<?> codec;
+
+        Registration(Class<?> eventType, EventCodec<?> codec) {
+            this.id = eventType.getName().hashCode();
+            this.eventType = eventType;
+            this.codec = codec;
+        }
+    }
+
+    public static final class Builder {
+        private final File directory;
+        private String name = "rxbus-sticky";
+        private int compactThreshold = 256 * 1024;
+        private final Map<Class<?>, Registration> registrations = new HashMap<>();
+
+        /**
+         * @param directory 保存日志和快照的目录
+         */
+        public Builder(@NonNull File directory) {
+            this.directory = ObjectHelper.requireNonNull(directory, "directory == null");
+        }
+
+        /**
+         * 文件名前缀，同一目录下有多个 bus 时区分，默认 rxbus-sticky
+         */
+        public Builder name(@NonNull String name) {
+            this.name = ObjectHelper.requireNonNull(name, "name == null");
+            return this;
+        }
+
+        /**
+         * 日志超过该字节数时合并成快照，默认 256KB
+         */
+        public Builder compactThreshold(int bytes) {
+            ObjectHelper.verifyPositive(bytes, "bytes");
+            this.compactThreshold = bytes;
+            return this;
+        }
+
+        /**
+         * 保存该事件类的粘滞事件
+         */
+        public <T> Builder codec(@NonNull Class<T> eventType, @NonNull EventCodec<T> codec) {
+            ObjectHelper.requireNonNull(eventType, "eventType == null");
+            ObjectHelper.requireNonNull(codec, "codec == null");
+            Registration registration = new Registration(eventType, codec);
+            for (Registration other : registrations.values()) {
+                if (other.id == registration.id && other.eventType != eventType) {
+                    throw new IllegalArgumentException("type id of " + eventType.getName()
+                            + " collides with " + other.eventType.getName());
+                }
+            }
+            registrations.put(eventType, registration);
+            return this;
+        }
+
+        public StickyPersistence build() {
+            return new StickyPersistence(this);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 粘滞事件的保留策略，按事件类型配置，同时也是 {@link ReplayBus} 历史事件的保留策略
+ * <p>通过 {@link RxBus.Builder#stickyPolicy(Class, StickyPolicy)} 或者
+ * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#stickyLimit()}、
+ * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#stickyTtlMillis()} 配置，
+ * {@link ReplayBus} 通过 {@link ReplayBus.Builder} 配置</p>
+ * <p>个数、过期时间、字节数可以同时限制，满足任意一个条件的最早的事件被移除</p>
+ */
+public final class StickyPolicy {
+
+    /**
+     * 估算事件占用的字节数，用于 {@link #maxBytes(long, Sizer)}
+     */
+    public interface Sizer {
+        long sizeOf(Object event);
+    }
+
+    private static final StickyPolicy UNBOUNDED = new StickyPolicy(0, 0, 0, null);
+    private static final StickyPolicy LATEST = new StickyPolicy(1, 0, 0, null);
+
+    /**
+     * 最多保留的事件个数，0 不限制
+     */
+    final int maxCount;
+    /**
+     * 事件保留的时间，0 一直保留
+     */
+    final long ttlMillis;
+    /**
+     * 所有保留事件估算字节数的上限，0 不限制；最新的一个事件超过上限时仍然保留
+     */
+    final long maxBytes;
+    final Sizer sizer;
+
+    private StickyPolicy(int maxCount, long ttlMillis, long maxBytes, Sizer sizer) {
+        this.maxCount = maxCount;
+        this.ttlMillis = ttlMillis;
+        this.maxBytes = maxBytes;
+        this.sizer = sizer;
+    }
+
+    /**
+     * 保留所有粘滞事件，直到手动移除
+     */
+    public static StickyPolicy unbounded() {
+        return UNBOUNDED;
+    }
+
+    /**
+     * 只保留最近的一个粘滞事件
+     */
+    public static StickyPolicy latest() {
+        return LATEST;
+    }
+
+    /**
+     * 只保留最近的 {@code count} 个粘滞事件
+     */
+    public static StickyPolicy lastN(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count > 0 required but it was " + count);
+        }
+        return new StickyPolicy(count, 0, 0, null);
+    }
+
+    /**
+     * 粘滞事件发送 {@code ttl} 后过期
+     */
+    public static StickyPolicy ttl(long ttl, @NonNull TimeUnit unit) {
+        return UNBOUNDED.withTtl(ttl, unit);
+    }
+
+    /**
+     * 保留的事件按 {@code sizer} 估算的总字节数不超过 {@code maxBytes}
+     */
+    public static StickyPolicy maxBytes(long maxBytes, @NonNull Sizer sizer) {
+        return UNBOUNDED.withMaxBytes(maxBytes, sizer);
+    }
+
+    /**
+     * 在当前个数限制的基础上增加过期时间
+     */
+    public StickyPolicy withTtl(long ttl, @NonNull TimeUnit unit) {
+        ObjectHelper.requireNonNull(unit, "unit == null");
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("ttl > 0 required but it was " + ttl);
+        }
+        return new StickyPolicy(maxCount, unit.toMillis(ttl), maxBytes, sizer);
+    }
+
+    /**
+     * 在当前限制的基础上增加字节数上限
+     */
+    public StickyPolicy withMaxBytes(long maxBytes, @NonNull Sizer sizer) {
+        ObjectHelper.requireNonNull(sizer, "sizer == null");
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes > 0 required but it was " + maxBytes);
+        }
+        return new StickyPolicy(maxCount, ttlMillis, maxBytes, sizer);
+    }
+
+    static StickyPolicy of(int maxCount, long ttlMillis) {
+        if (maxCount <= 0 && ttlMillis <= 0) {
+            return UNBOUNDED;
+        }
+        return new StickyPolicy(Math.max(maxCount, 0), Math.max(ttlMillis, 0), 0, null);
+    }
+
+    boolean isUnbounded() {
+        return maxCount == 0 && ttlMillis == 0 && maxBytes == 0;
+    }
+}
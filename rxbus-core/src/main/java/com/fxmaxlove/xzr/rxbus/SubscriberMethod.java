@@ -0,0 +1,120 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe;
+import com.fxmaxlove.xzr.rxbus.index.ChannelSubscriberInfo;
+import com.fxmaxlove.xzr.rxbus.index.SubscriberInfo;
+import com.fxmaxlove.xzr.rxbus.index.SubscriberMethodInfo;
+import com.fxmaxlove.xzr.rxbus.invoke.Invokers;
+import com.fxmaxlove.xzr.rxbus.invoke.PrimitiveInvoker;
+import com.fxmaxlove.xzr.rxbus.invoke.SubscriberInvoker;
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+import com.fxmaxlove.xzr.rxbus.util.OverflowStrategy;
+
+import java.lang.reflect.Method;
+
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.Nullable;
+
+/**
+ * 订阅方法，来源于编译期索引或者反射扫描
+ */
+final class SubscriberMethod {
+
+    final Class<?> eventType;
+    final EventThread observeOnThread;
+    final boolean isSticky;
+    final StickyPolicy stickyPolicy;
+    final OverflowStrategy overflow;
+    final int bufferSize;
+    /**
+     * 注册的线程名字，空字符串使用 {@link #observeOnThread}
+     */
+    final String executor;
+    /**
+     * 基本类型通道的名字，空字符串按 {@link #eventType} 订阅
+     */
+    final String channel;
+    /**
+     * 订阅的主题，空字符串按 {@link #eventType} 订阅
+     */
+    final String topic;
+    final RateControl rateControl;
+    final SubscriberInvoker invoker;
+    /**
+     * 通道方法的不装箱调用，不是通道方法时为 null
+     */
+    @Nullable
+    final PrimitiveInvoker primitiveInvoker;
+    private final String name;
+
+    private SubscriberMethod(Class<?> eventType, EventThread observeOnThread, boolean isSticky,
+                             StickyPolicy stickyPolicy, OverflowStrategy overflow, int bufferSize,
+                             String executor, String channel, String topic, RateControl rateControl,
+                             SubscriberInvoker invoker,
+                             @Nullable PrimitiveInvoker primitiveInvoker, String name) {
+        if (!channel.isEmpty() && (isSticky || !topic.isEmpty() || !rateControl.isNone())) {
+            throw new IllegalArgumentException(name + " has a channel, it can not be sticky, have a topic or rate control");
+        }
+        this.eventType = eventType;
+        this.observeOnThread = observeOnThread;
+        this.isSticky = isSticky;
+        this.stickyPolicy = stickyPolicy;
+        this.overflow = overflow;
+        this.bufferSize = bufferSize;
+        this.executor = executor;
+        this.channel = channel;
+        this.topic = topic;
+        this.rateControl = rateControl;
+        this.invoker = invoker;
+        this.primitiveInvoker = primitiveInvoker;
+        this.name = name;
+    }
+
+    /**
+     * 通过生成的索引直接调用
+     */
+    static SubscriberMethod indexed(SubscriberInfo info, int index) {
+        SubscriberMethodInfo methodInfo = info.getSubscriberMethods()[index];
+        return new SubscriberMethod(methodInfo.eventType, methodInfo.observeOnThread, methodInfo.isSticky,
+                StickyPolicy.of(methodInfo.stickyLimit, methodInfo.stickyTtlMillis),
+                methodInfo.overflow, methodInfo.bufferSize, methodInfo.executor, methodInfo.channel, methodInfo.topic,
+                RateControl.of(methodInfo.throttleFirstMillis, methodInfo.debounceMillis, methodInfo.sampleMillis,
+                        methodInfo.distinct, methodInfo.maxRatePerSecond),
+                Invokers.forIndex(info, index),
+                methodInfo.channel.isEmpty() ? null : Invokers.forChannelIndex((ChannelSubscriberInfo) info, index),
+                info.getClass().getName() + "#" + methodInfo.methodName);
+    }
+
+    /**
+     * 没有索引时通过 {@link Invokers#forMethod(Method)} 调用
+     */
+    static SubscriberMethod reflective(Method method, Class<?> eventType, RxSubscribe rxAnnotation) {
+        String channel = rxAnnotation.channel();
+        PrimitiveInvoker primitiveInvoker = null;
+        if (!channel.isEmpty()) {
+            Class<?> parameterType = method.getParameterTypes()[0];
+            if (parameterType != int.class && parameterType != long.class && parameterType != double.class) {
+                throw new IllegalArgumentException(method + " has a channel but its parameter is not int, long or double");
+            }
+            primitiveInvoker = Invokers.forPrimitiveMethod(method);
+        }
+        return new SubscriberMethod(eventType, rxAnnotation.observeOnThread(), rxAnnotation.isSticky(),
+                StickyPolicy.of(rxAnnotation.stickyLimit(), rxAnnotation.stickyTtlMillis()),
+                rxAnnotation.overflow(), rxAnnotation.bufferSize(), rxAnnotation.executor(), channel, rxAnnotation.topic(),
+                RateControl.of(rxAnnotation.throttleFirstMillis(), rxAnnotation.debounceMillis(),
+                        rxAnnotation.sampleMillis(), rxAnnotation.distinct(), rxAnnotation.maxRatePerSecond()),
+                Invokers.forMethod(method), primitiveInvoker, method.toString());
+    }
+
+    /**
+     * 接收事件的线程
+     */
+    Scheduler scheduler() {
+        return executor.isEmpty() ? EventThread.getScheduler(observeOnThread) : EventThread.getScheduler(executor);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,78 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe;
+import com.fxmaxlove.xzr.rxbus.index.SubscriberIndexFinder;
+import com.fxmaxlove.xzr.rxbus.index.SubscriberInfo;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 解析订阅者类的 {@link RxSubscribe} 方法，结果按类缓存，
+ * 同一个类的第二个实例注册时不再扫描
+ */
+final class SubscriberMethodFinder {
+
+    private static final Map<Class<?>, List<SubscriberMethod>> METHOD_CACHE = new ConcurrentHashMap<>();
+
+    private SubscriberMethodFinder() {
+    }
+
+    static List<SubscriberMethod> find(Class<?> subscriberClass) {
+        List<SubscriberMethod> methods = METHOD_CACHE.get(subscriberClass);
+        if (methods == null) {
+            methods = Collections.unmodifiableList(scan(subscriberClass));
+            METHOD_CACHE.put(subscriberClass, methods);
+        }
+        return methods;
+    }
+
+    private static List<SubscriberMethod> scan(Class<?> subscriberClass) {
+        SubscriberInfo subscriberInfo = SubscriberIndexFinder.find(subscriberClass);
+        if (subscriberInfo != null) {
+            int count = subscriberInfo.getSubscriberMethods().length;
+            List<SubscriberMethod> methods = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                methods.add(SubscriberMethod.indexed(subscriberInfo, i));
+            }
+            return methods;
+        }
+        List<SubscriberMethod> methods = new ArrayList<>();
+        for (Method method : subscriberClass.getDeclaredMethods()) {
+            RxSubscribe rxAnnotation = method.getAnnotation(RxSubscribe.class);
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            if (rxAnnotation == null || parameterTypes.length == 0) {
+                continue;
+            }
+            method.setAccessible(true);
+            methods.add(SubscriberMethod.reflective(method, getEventType(parameterTypes[0]), rxAnnotation));
+        }
+        return methods;
+    }
+
+    private static Class<?> getEventType(Class<?> cls) {
+        String clsName = cls.getName();
+        if (clsName.equals(int.class.getName())) {
+            cls = Integer.class;
+        } else if (clsName.equals(double.class.getName())) {
+            cls = Double.class;
+        } else if (clsName.equals(float.class.getName())) {
+            cls = Float.class;
+        } else if (clsName.equals(long.class.getName())) {
+            cls = Long.class;
+        } else if (clsName.equals(byte.class.getName())) {
+            cls = Byte.class;
+        } else if (clsName.equals(short.class.getName())) {
+            cls = Short.class;
+        } else if (clsName.equals(boolean.class.getName())) {
+            cls = Boolean.class;
+        } else if (clsName.equals(char.class.getName())) {
+            cls = Character.class;
+        }
+        return cls;
+    }
+}
@@ -0,0 +1,72 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个订阅方法的统计
+ */
+public final class SubscriberMetrics {
+
+    private final String name;
+    private final Histogram deliveryLatency = new Histogram();
+    private final Histogram invocationTime = new Histogram();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    SubscriberMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 订阅方法，例如 {@code com.example.MainActivity_RxIndex#onLogin}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 从 post 到订阅方法开始执行的耗时，包括在接收线程队列中等待的时间
+     */
+    public Histogram getDeliveryLatency() {
+        return deliveryLatency;
+    }
+
+    /**
+     * 订阅方法本身的执行耗时
+     */
+    public Histogram getInvocationTime() {
+        return invocationTime;
+    }
+
+    /**
+     * 已经 post 但还在接收线程队列中等待的事件个数
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    void onEnqueue() {
+        pending.incrementAndGet();
+    }
+
+    void onDequeue(long postNanos, long now) {
+        pending.decrementAndGet();
+        deliveryLatency.record(now - postNanos);
+    }
+
+    /**
+     * 取消订阅时丢弃的排队事件
+     */
+    void onDropped(int count) {
+        pending.addAndGet(-count);
+    }
+
+    void onInvoked(long nanos) {
+        invocationTime.record(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return name + " {pending=" + getPendingCount() + ", latency[" + deliveryLatency
+                + "], invocation[" + invocationTime + "]}";
+    }
+}
@@ -0,0 +1,100 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.reactivex.disposables.CompositeDisposable;
+
+/**
+ * 已注册的订阅者，按对象身份（而不是 {@code hashCode/equals}）区分，只弱引用订阅者
+ * <p>忘记 unregister 的订阅者被回收后，下一次 post、注册、解除注册时通过 {@link ReferenceQueue}
+ * 找到并 dispose 它的所有订阅</p>
+ */
+final class SubscriberRegistry {
+
+    private final ConcurrentMap<Entry, Entry> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    /**
+     * @return 新的注册记录，已经注册过时返回 null
+     */
+    Entry register(Object subscriber) {
+        expunge();
+        Entry entry = new Entry(subscriber, queue, new CompositeDisposable());
+        return entries.putIfAbsent(entry, entry) == null ? entry : null;
+    }
+
+    boolean isRegistered(Object subscriber) {
+        expunge();
+        return entries.containsKey(new Entry(subscriber, null, null));
+    }
+
+    void unregister(Object subscriber) {
+        expunge();
+        Entry entry = entries.remove(new Entry(subscriber, null, null));
+        if (entry != null) {
+            entry.disposables.dispose();
+        }
+    }
+
+    /**
+     * 同步 dispose 所有订阅者
+     */
+    void clear() {
+        Iterator<Entry> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            entry.disposables.dispose();
+        }
+        expunge();
+    }
+
+    /**
+     * dispose 已被回收的订阅者的订阅，没有时只是一次 {@link ReferenceQueue#poll()}，不加锁也不分配内存
+     */
+    void expunge() {
+        Reference<?> reference;
+        while ((reference = queue.poll()) != null) {
+            Entry entry = (Entry) reference;
+            if (entries.remove(entry) != null) {
+                entry.disposables.dispose();
+            }
+        }
+    }
+
+    /**
+     * 订阅者的弱引用，订阅回调只通过它访问订阅者，不会阻止订阅者被回收
+     */
+    static final class Entry extends WeakReference<Object> {
+        final CompositeDisposable disposables;
+        private final int hash;
+
+        Entry(Object subscriber, ReferenceQueue<Object> queue, CompositeDisposable disposables) {
+            super(subscriber, queue);
+            this.disposables = disposables;
+            this.hash = System.identityHashCode(subscriber);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Object subscriber = get();
+            return subscriber != null && subscriber == ((Entry) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
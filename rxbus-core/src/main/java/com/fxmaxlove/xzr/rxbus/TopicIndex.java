@@ -0,0 +1,312 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.jakewharton.rxrelay2.PublishRelay;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+
+/**
+ * 按主题分发，每个订阅过的主题或通配符一个 {@link SerializedBatchRelay}
+ * <p>主题按 {@code .} 分段，订阅时 {@code *} 匹配一段，最后一段的 {@code #} 匹配之后的零段或多段，
+ * 例如 {@code order.*.paid}、{@code order.#}。没有通配符的主题保存在哈希表中；
+ * 通配符编译成按段的前缀树，post 时沿着主题的各段查找，不逐个比较所有通配符。</p>
+ * <p>有通配符订阅时，每个主题匹配到的 relay 缓存起来，订阅新的主题或通配符时清空，
+ * 之后同一个主题的 post 只查一次哈希表。</p>
+ * <p>主题或通配符的最后一个订阅者取消订阅时移除它的 relay 和前缀树中空的节点，并清空缓存</p>
+ */
+final class TopicIndex {
+
+    static final char SEPARATOR = '.';
+    static final String ONE = "*";
+    static final String REST = "#";
+    /** 主题个数不受限制时防止缓存无限增长 */
+    private static final int MAX_ROUTES = 4096;
+
+    @SuppressWarnings("unchecked")
+    private static final SerializedBatchRelay<Object>[] NONE =
+            (SerializedBatchRelay<Object>[]) new SerializedBatchRelay<?>[0];
+
+    private static final Function<SerializedBatchRelay<Object>, ObservableSource<Object>> SOURCE =
+            new Function<SerializedBatchRelay<Object>, ObservableSource<Object>>() {
+                @Override
+                public ObservableSource<Object> apply(SerializedBatchRelay<Object> relay) throws Exception {
+                    return relay;
+                }
+            };
+
+    private final ConcurrentMap<String, SerializedBatchRelay<Object>> exact = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SerializedBatchRelay<Object>[]> routes = new ConcurrentHashMap<>();
+    /** 没有通配符的主题的订阅者个数，guarded by this */
+    private final Map<String, Integer> exactSubscribers = new HashMap<>();
+    /** guarded by this */
+    private final Node root = new Node();
+    private volatile boolean hasPatterns;
+
+    /**
+     * 订阅主题或通配符，每次订阅时持有它的 relay（第一个订阅者创建），取消订阅时释放
+     * @throws IllegalArgumentException {@code #} 不是最后一段，或者有空的段
+     */
+    Observable<Object> observe(final String topic) {
+        final List<String> segments = segments(topic);
+        boolean pattern = false;
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (segment.isEmpty()) {
+                throw new IllegalArgumentException("empty segment in topic \"" + topic + "\"");
+            }
+            if (segment.equals(REST) && i != segments.size() - 1) {
+                throw new IllegalArgumentException("'#' must be the last segment of \"" + topic + "\"");
+            }
+            pattern |= segment.equals(ONE) || segment.equals(REST);
+        }
+        final boolean isPattern = pattern;
+        return Observable.using(new Callable<SerializedBatchRelay<Object>>() {
+            @Override
+            public SerializedBatchRelay<Object> call() throws Exception {
+                return isPattern ? acquirePattern(segments) : acquire(topic);
+            }
+        }, SOURCE, new Consumer<SerializedBatchRelay<Object>>() {
+            @Override
+            public void accept(SerializedBatchRelay<Object> relay) throws Exception {
+                if (isPattern) {
+                    releasePattern(segments);
+                } else {
+                    release(topic);
+                }
+            }
+        });
+    }
+
+    private synchronized SerializedBatchRelay<Object> acquire(String topic) {
+        SerializedBatchRelay<Object> relay = exact.get(topic);
+        Integer subscribers = exactSubscribers.get(topic);
+        if (relay == null) {
+            relay = SerializedBatchRelay.wrap(PublishRelay.create());
+            exact.put(topic, relay);
+            routes.clear();
+        }
+        exactSubscribers.put(topic, subscribers == null ? 1 : subscribers + 1);
+        return relay;
+    }
+
+    private synchronized void release(String topic) {
+        int subscribers = exactSubscribers.get(topic) - 1;
+        if (subscribers > 0) {
+            exactSubscribers.put(topic, subscribers);
+            return;
+        }
+        exactSubscribers.remove(topic);
+        exact.remove(topic);
+        routes.clear();
+    }
+
+    private synchronized SerializedBatchRelay<Object> acquirePattern(List<String> segments) {
+        Node node = root;
+        int last = segments.size() - 1;
+        boolean rest = segments.get(last).equals(REST);
+        for (int i = 0; i < (rest ? last : segments.size()); i++) {
+            node = node.child(segments.get(i));
+        }
+        SerializedBatchRelay<Object> relay = rest ? node.rest : node.relay;
+        if (relay == null) {
+            relay = SerializedBatchRelay.wrap(PublishRelay.create());
+            if (rest) {
+                node.rest = relay;
+            } else {
+                node.relay = relay;
+            }
+            hasPatterns = true;
+            routes.clear();
+        }
+        if (rest) {
+            node.restSubscribers++;
+        } else {
+            node.relaySubscribers++;
+        }
+        return relay;
+    }
+
+    /**
+     * 最后一个订阅者取消订阅时移除 relay，再从下往上移除空的节点
+     */
+    private synchronized void releasePattern(List<String> segments) {
+        int last = segments.size() - 1;
+        boolean rest = segments.get(last).equals(REST);
+        int depth = rest ? last : segments.size();
+        Node[] path = new Node[depth + 1];
+        path[0] = root;
+        for (int i = 0; i < depth; i++) {
+            path[i + 1] = path[i].find(segments.get(i));
+        }
+        Node node = path[depth];
+        if (rest) {
+            if (--node.restSubscribers > 0) {
+                return;
+            }
+            node.rest = null;
+        } else {
+            if (--node.relaySubscribers > 0) {
+                return;
+            }
+            node.relay = null;
+        }
+        for (int i = depth; i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].remove(segments.get(i - 1));
+        }
+        hasPatterns = !root.isEmpty();
+        routes.clear();
+    }
+
+    void dispatch(String topic, Object event) {
+        if (!hasPatterns) {
+            SerializedBatchRelay<Object> relay = exact.get(topic);
+            if (relay != null && relay.hasObservers()) {
+                relay.accept(event);
+            }
+            return;
+        }
+        for (SerializedBatchRelay<Object> relay : route(topic)) {
+            if (relay.hasObservers()) {
+                relay.accept(event);
+            }
+        }
+    }
+
+    boolean hasObservers(String topic) {
+        if (!hasPatterns) {
+            SerializedBatchRelay<Object> relay = exact.get(topic);
+            return relay != null && relay.hasObservers();
+        }
+        for (SerializedBatchRelay<Object> relay : route(topic)) {
+            if (relay.hasObservers()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 主题本身和匹配的通配符的 relay
+     */
+    private SerializedBatchRelay<Object>[] route(String topic) {
+        SerializedBatchRelay<Object>[] route = routes.get(topic);
+        if (route != null) {
+            return route;
+        }
+        synchronized (this) {
+            List<SerializedBatchRelay<Object>> matched = new ArrayList<>();
+            SerializedBatchRelay<Object> relay = exact.get(topic);
+            if (relay != null) {
+                matched.add(relay);
+            }
+            match(root, topic, 0, matched);
+            route = matched.isEmpty() ? NONE : matched.toArray(NONE);
+            if (routes.size() >= MAX_ROUTES) {
+                routes.clear();
+            }
+            routes.put(topic, route);
+            return route;
+        }
+    }
+
+    /**
+     * @param start 下一段的开始位置，大于 {@code topic.length()} 时所有段都已经匹配
+     */
+    private static void match(Node node, String topic, int start, List<SerializedBatchRelay<Object>> matched) {
+        if (node.rest != null) {
+            matched.add(node.rest);
+        }
+        if (start > topic.length()) {
+            if (node.relay != null) {
+                matched.add(node.relay);
+            }
+            return;
+        }
+        int end = topic.indexOf(SEPARATOR, start);
+        if (end < 0) {
+            end = topic.length();
+        }
+        if (node.children != null) {
+            Node child = node.children.get(topic.substring(start, end));
+            if (child != null) {
+                match(child, topic, end + 1, matched);
+            }
+        }
+        if (node.one != null) {
+            match(node.one, topic, end + 1, matched);
+        }
+    }
+
+    private static List<String> segments(String topic) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (;;) {
+            int end = topic.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                segments.add(topic.substring(start));
+                return segments;
+            }
+            segments.add(topic.substring(start, end));
+            start = end + 1;
+        }
+    }
+
+    private static final class Node {
+        Map<String, Node> children;
+        /** {@code *} */
+        Node one;
+        /** 在这里结束的通配符 */
+        SerializedBatchRelay<Object> relay;
+        /** 在这里以 {@code #} 结束的通配符 */
+        SerializedBatchRelay<Object> rest;
+        int relaySubscribers;
+        int restSubscribers;
+
+        Node find(String segment) {
+            return segment.equals(ONE) ? one : children.get(segment);
+        }
+
+        void remove(String segment) {
+            if (segment.equals(ONE)) {
+                one = null;
+                return;
+            }
+            children.remove(segment);
+            if (children.isEmpty()) {
+                children = null;
+            }
+        }
+
+        boolean isEmpty() {
+            return relay == null && rest == null && one == null && children == null;
+        }
+
+        Node child(String segment) {
+            if (segment.equals(ONE)) {
+                if (one == null) {
+                    one = new Node();
+                }
+                return one;
+            }
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            Node child = children.get(segment);
+            if (child == null) {
+                child = new Node();
+                children.put(segment, child);
+            }
+            return child;
+        }
+    }
+}
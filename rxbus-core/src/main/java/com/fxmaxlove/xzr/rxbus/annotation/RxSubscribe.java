@@ -0,0 +1,91 @@
+package com.fxmaxlove.xzr.rxbus.annotation;
+
+
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+import com.fxmaxlove.xzr.rxbus.util.OverflowStrategy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Created by threshold on 2017/1/16.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface RxSubscribe {
+    EventThread observeOnThread() default EventThread.MAIN;
+    boolean isSticky() default false;
+
+    /**
+     * 粘滞事件最多保留的个数，0 不限制，1 只保留最近一个
+     * <p>只在 {@link #isSticky()} 时生效，并且该事件类型没有在 {@code RxBus.Builder} 中配置过</p>
+     */
+    int stickyLimit() default 0;
+
+    /**
+     * 粘滞事件保留的毫秒数，0 一直保留
+     * <p>只在 {@link #isSticky()} 时生效，并且该事件类型没有在 {@code RxBus.Builder} 中配置过</p>
+     */
+    long stickyTtlMillis() default 0;
+
+    /**
+     * 缓冲区满时的处理方式，只在 {@code FlowableBus} 上生效，默认使用 bus 的配置
+     * <p>{@link OverflowStrategy#DROP_OLDEST} 丢弃最早缓冲的事件；{@link OverflowStrategy#DROP_LATEST}
+     * 丢弃最近缓冲的一个，新的事件放在它的位置，不是丢弃新的事件</p>
+     */
+    OverflowStrategy overflow() default OverflowStrategy.DEFAULT;
+
+    /**
+     * 缓冲区大小，只在 {@code FlowableBus} 上生效，0 使用 bus 的配置
+     */
+    int bufferSize() default 0;
+
+    /**
+     * 在 {@code EventThread.registerExecutor}、{@code registerScheduler}、{@code registerSerialLanes}
+     * 注册的线程上接收事件，设置后忽略 {@link #observeOnThread()}；注册时找不到该名字会抛出异常
+     */
+    String executor() default "";
+
+    /**
+     * 不装箱的基本类型通道的名字，设置后方法参数必须是 int、long 或 double，
+     * 注册到 {@code BaseBus#intChannel(String)} 等同名的通道而不是按事件类型订阅
+     * <p>通道方法不能同时设置 {@link #isSticky()}、{@link #topic()} 和限流属性，注解处理器报错，反射注册时抛出异常。
+     * 没有编译期索引、classpath 中也没有 rxbus-methodhandle 时（Android 上不使用注解处理器）通过反射调用，
+     * 每次调用都会装箱</p>
+     */
+    String channel() default "";
+
+    /**
+     * 只接收 {@code BaseBus#post(String, Object)} 发送到该主题的事件，可以使用通配符，
+     * 见 {@code BaseBus#ofTopic(String, Class)}；设置后忽略 {@link #isSticky()}
+     */
+    String topic() default "";
+
+    /**
+     * 收到一个事件后的该毫秒数内丢弃之后的事件，0 不限制
+     * <p>限流在切换到接收线程之前生效，被丢弃的事件不会进入接收线程的队列</p>
+     */
+    long throttleFirstMillis() default 0;
+
+    /**
+     * 事件停止该毫秒数后才送达最后一个，0 不限制
+     */
+    long debounceMillis() default 0;
+
+    /**
+     * 每隔该毫秒数送达期间最新的一个事件，0 不限制
+     */
+    long sampleMillis() default 0;
+
+    /**
+     * 丢弃与上一个事件 {@code equals} 的事件
+     */
+    boolean distinct() default false;
+
+    /**
+     * 每秒最多送达的事件个数，超出的事件丢弃，0 不限制
+     */
+    int maxRatePerSecond() default 0;
+}
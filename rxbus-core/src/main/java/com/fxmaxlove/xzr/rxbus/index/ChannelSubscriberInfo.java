@@ -0,0 +1,14 @@
+package com.fxmaxlove.xzr.rxbus.index;
+
+/**
+ * 含有 {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#channel()} 方法的订阅者索引，
+ * 不装箱地调用参数为 int、long、double 的通道方法
+ */
+public interface ChannelSubscriberInfo extends SubscriberInfo {
+
+    void invokeInt(Object subscriber, int index, int value) throws Exception;
+
+    void invokeLong(Object subscriber, int index, long value) throws Exception;
+
+    void invokeDouble(Object subscriber, int index, double value) throws Exception;
+}
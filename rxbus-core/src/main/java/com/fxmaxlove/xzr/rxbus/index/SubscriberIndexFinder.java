@@ -0,0 +1,56 @@
+package com.fxmaxlove.xzr.rxbus.index;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.reactivex.annotations.Nullable;
+
+/**
+ * 查找编译期生成的 {@link SubscriberInfo}，每个订阅者类只查找一次
+ */
+public final class SubscriberIndexFinder {
+
+    private static final SubscriberInfo NONE = new SubscriberInfo() {
+        @Override
+        public SubscriberMethodInfo[] getSubscriberMethods() {
+            return new SubscriberMethodInfo[0];
+        }
+
+        @Override
+        public void invoke(Object subscriber, int index, Object event) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private static final Map<Class<?>, SubscriberInfo> INDEXES = new ConcurrentHashMap<>();
+
+    private SubscriberIndexFinder() {
+    }
+
+    /**
+     * @return 订阅者类的索引，没有生成索引（未使用 rxbus-compiler 或被混淆）时返回 null
+     */
+    @Nullable
+    public static SubscriberInfo find(Class<?> subscriberClass) {
+        SubscriberInfo info = INDEXES.get(subscriberClass);
+        if (info == null) {
+            info = load(subscriberClass);
+            INDEXES.put(subscriberClass, info);
+        }
+        return info == NONE ? null : info;
+    }
+
+    private static SubscriberInfo load(Class<?> subscriberClass) {
+        String indexName = subscriberClass.getName() + SubscriberInfo.SUFFIX;
+        try {
+            Class<?> indexClass = Class.forName(indexName, true, subscriberClass.getClassLoader());
+            return (SubscriberInfo) indexClass.newInstance();
+        } catch (ClassNotFoundException e) {
+            return NONE;
+        } catch (InstantiationException e) {
+            throw new IllegalStateException("Unable to create index " + indexName, e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to create index " + indexName, e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.fxmaxlove.xzr.rxbus.index;
+
+/**
+ * 订阅者索引，由 rxbus-compiler 在编译期为每个含有
+ * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe} 方法的类生成。
+ * <p>生成类与订阅者同包，类名为订阅者的类名加上 {@link #SUFFIX}，
+ * 注册时直接调用生成的方法，不再需要反射扫描。</p>
+ */
+public interface SubscriberInfo {
+
+    /**
+     * 生成类的后缀，例如 {@code MainActivity_RxIndex}、{@code Outer$Inner_RxIndex}
+     */
+    String SUFFIX = "_RxIndex";
+
+    /**
+     * @return 订阅者类中所有订阅方法的描述，顺序与 {@link #invoke(Object, int, Object)} 的 index 对应
+     */
+    SubscriberMethodInfo[] getSubscriberMethods();
+
+    /**
+     * 直接调用订阅方法
+     * @param subscriber 订阅者
+     * @param index 方法在 {@link #getSubscriberMethods()} 中的位置
+     * @param event 事件
+     * @throws Exception 订阅方法抛出的异常
+     */
+    void invoke(Object subscriber, int index, Object event) throws Exception;
+}
@@ -0,0 +1,151 @@
+package com.fxmaxlove.xzr.rxbus.index;
+
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+import com.fxmaxlove.xzr.rxbus.util.OverflowStrategy;
+
+/**
+ * 编译期解析出的订阅方法描述，创建之后不可修改
+ * <p>生成代码只为注解上显式设置过的属性调用 {@link Builder} 的 {@code sticky(...)}、{@code overflow(...)} 等方法，
+ * 其余属性保持注解的默认值</p>
+ */
+public final class SubscriberMethodInfo {
+
+    public final String methodName;
+    /**
+     * 事件类型，基本类型参数已经转换为对应的包装类型
+     */
+    public final Class<?> eventType;
+    public final EventThread observeOnThread;
+    public final boolean isSticky;
+    public final int stickyLimit;
+    public final long stickyTtlMillis;
+    public final OverflowStrategy overflow;
+    public final int bufferSize;
+    public final String executor;
+    public final String channel;
+    public final String topic;
+    public final long throttleFirstMillis;
+    public final long debounceMillis;
+    public final long sampleMillis;
+    public final boolean distinct;
+    public final int maxRatePerSecond;
+
+    /**
+     * 其余属性都使用注解的默认值
+     */
+    public SubscriberMethodInfo(String methodName, Class<?> eventType,
+                                EventThread observeOnThread, boolean isSticky) {
+        this(new Builder(methodName, eventType, observeOnThread, isSticky));
+    }
+
+    private SubscriberMethodInfo(Builder builder) {
+        this.methodName = builder.methodName;
+        this.eventType = builder.eventType;
+        this.observeOnThread = builder.observeOnThread;
+        this.isSticky = builder.isSticky;
+        this.stickyLimit = builder.stickyLimit;
+        this.stickyTtlMillis = builder.stickyTtlMillis;
+        this.overflow = builder.overflow;
+        this.bufferSize = builder.bufferSize;
+        this.executor = builder.executor;
+        this.channel = builder.channel;
+        this.topic = builder.topic;
+        this.throttleFirstMillis = builder.throttleFirstMillis;
+        this.debounceMillis = builder.debounceMillis;
+        this.sampleMillis = builder.sampleMillis;
+        this.distinct = builder.distinct;
+        this.maxRatePerSecond = builder.maxRatePerSecond;
+    }
+
+    public static final class Builder {
+        private final String methodName;
+        private final Class<?> eventType;
+        private final EventThread observeOnThread;
+        private final boolean isSticky;
+        private int stickyLimit;
+        private long stickyTtlMillis;
+        private OverflowStrategy overflow = OverflowStrategy.DEFAULT;
+        private int bufferSize;
+        private String executor = "";
+        private String channel = "";
+        private String topic = "";
+        private long throttleFirstMillis;
+        private long debounceMillis;
+        private long sampleMillis;
+        private boolean distinct;
+        private int maxRatePerSecond;
+
+        public Builder(String methodName, Class<?> eventType, EventThread observeOnThread, boolean isSticky) {
+            this.methodName = methodName;
+            this.eventType = eventType;
+            this.observeOnThread = observeOnThread;
+            this.isSticky = isSticky;
+        }
+
+        /**
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#stickyLimit()}、
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#stickyTtlMillis()}
+         */
+        public Builder sticky(int stickyLimit, long stickyTtlMillis) {
+            this.stickyLimit = stickyLimit;
+            this.stickyTtlMillis = stickyTtlMillis;
+            return this;
+        }
+
+        /**
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#overflow()}、
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#bufferSize()}
+         */
+        public Builder overflow(OverflowStrategy overflow, int bufferSize) {
+            this.overflow = overflow;
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#executor()}
+         */
+        public Builder executor(String executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#channel()}，
+         * 生成类同时实现 {@link ChannelSubscriberInfo}
+         */
+        public Builder channel(String channel) {
+            this.channel = channel;
+            return this;
+        }
+
+        /**
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#topic()}
+         */
+        public Builder topic(String topic) {
+            this.topic = topic;
+            return this;
+        }
+
+        /**
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#throttleFirstMillis()}、
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#debounceMillis()}、
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#sampleMillis()}、
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#distinct()}、
+         * {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#maxRatePerSecond()}
+         */
+        public Builder rate(long throttleFirstMillis, long debounceMillis, long sampleMillis,
+                            boolean distinct, int maxRatePerSecond) {
+            this.throttleFirstMillis = throttleFirstMillis;
+            this.debounceMillis = debounceMillis;
+            this.sampleMillis = sampleMillis;
+            this.distinct = distinct;
+            this.maxRatePerSecond = maxRatePerSecond;
+            return this;
+        }
+
+        public SubscriberMethodInfo build() {
+            return new SubscriberMethodInfo(this);
+        }
+    }
+}
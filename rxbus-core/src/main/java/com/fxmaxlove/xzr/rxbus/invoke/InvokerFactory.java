@@ -0,0 +1,18 @@
+package com.fxmaxlove.xzr.rxbus.invoke;
+
+import java.lang.reflect.Method;
+
+import io.reactivex.annotations.Nullable;
+
+/**
+ * 为订阅方法创建 {@link SubscriberInvoker}
+ */
+public interface InvokerFactory {
+
+    /**
+     * @param method 已经 {@code setAccessible(true)} 的订阅方法
+     * @return 不支持当前运行环境或该方法时返回 null，由下一种方式处理
+     */
+    @Nullable
+    SubscriberInvoker create(Method method);
+}
@@ -0,0 +1,157 @@
+package com.fxmaxlove.xzr.rxbus.invoke;
+
+import com.fxmaxlove.xzr.rxbus.index.ChannelSubscriberInfo;
+import com.fxmaxlove.xzr.rxbus.index.SubscriberInfo;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * 订阅方法调用方式的选择和缓存
+ * <ol>
+ *     <li>有编译期索引时直接调用生成的 {@link SubscriberInfo}</li>
+ *     <li>classpath 中有 rxbus-methodhandle 模块的 {@code MethodHandleInvokerFactory} 时使用它（只用于 JVM）</li>
+ *     <li>否则使用 {@link ReflectionInvokerFactory}</li>
+ * </ol>
+ * 每个 {@link Method} 只创建一次 {@link SubscriberInvoker}
+ */
+public final class Invokers {
+
+    private static final InvokerFactory REFLECTION = new ReflectionInvokerFactory();
+    private static final Map<Method, SubscriberInvoker> INVOKERS = new ConcurrentHashMap<>();
+    private static final Map<Method, PrimitiveInvoker> PRIMITIVE_INVOKERS = new ConcurrentHashMap<>();
+    private static final boolean METHOD_HANDLES = methodHandlesSupported();
+
+    private static final String METHOD_HANDLE_FACTORY = "com.fxmaxlove.xzr.rxbus.invoke.MethodHandleInvokerFactory";
+
+    private static volatile InvokerFactory invokerFactory = defaultFactory();
+
+    private Invokers() {
+    }
+
+    /**
+     * 替换反射方法的调用方式，返回 null 的方法仍然使用 {@link ReflectionInvokerFactory}
+     */
+    public static void setInvokerFactory(@NonNull InvokerFactory factory) {
+        ObjectHelper.requireNonNull(factory, "factory == null");
+        invokerFactory = factory;
+        INVOKERS.clear();
+        PRIMITIVE_INVOKERS.clear();
+    }
+
+    public static SubscriberInvoker forMethod(@NonNull Method method) {
+        SubscriberInvoker invoker = INVOKERS.get(method);
+        if (invoker == null) {
+            invoker = invokerFactory.create(method);
+            if (invoker == null) {
+                invoker = REFLECTION.create(method);
+            }
+            INVOKERS.put(method, invoker);
+        }
+        return invoker;
+    }
+
+    /**
+     * 参数为 int、long、double 的通道方法，当前的 {@link InvokerFactory} 实现了 {@link PrimitiveInvokerFactory} 时使用它，
+     * 否则通过反射调用；Android 上不装箱的调用来自编译期索引 {@link #forChannelIndex(ChannelSubscriberInfo, int)}
+     */
+    public static PrimitiveInvoker forPrimitiveMethod(@NonNull Method method) {
+        PrimitiveInvoker invoker = PRIMITIVE_INVOKERS.get(method);
+        if (invoker == null) {
+            InvokerFactory factory = invokerFactory;
+            invoker = factory instanceof PrimitiveInvokerFactory
+                    ? ((PrimitiveInvokerFactory) factory).createPrimitive(method) : null;
+            if (invoker == null) {
+                invoker = ReflectionInvokerFactory.createPrimitive(method);
+            }
+            PRIMITIVE_INVOKERS.put(method, invoker);
+        }
+        return invoker;
+    }
+
+    /**
+     * 编译期生成的通道方法调用
+     */
+    public static PrimitiveInvoker forChannelIndex(@NonNull final ChannelSubscriberInfo info, final int index) {
+        return new PrimitiveInvoker() {
+            @Override
+            public void invokeInt(Object subscriber, int value) throws InvocationTargetException {
+                try {
+                    info.invokeInt(subscriber, index, value);
+                } catch (Exception e) {
+                    throw new InvocationTargetException(e);
+                } catch (Error e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+
+            @Override
+            public void invokeLong(Object subscriber, long value) throws InvocationTargetException {
+                try {
+                    info.invokeLong(subscriber, index, value);
+                } catch (Exception e) {
+                    throw new InvocationTargetException(e);
+                } catch (Error e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+
+            @Override
+            public void invokeDouble(Object subscriber, double value) throws InvocationTargetException {
+                try {
+                    info.invokeDouble(subscriber, index, value);
+                } catch (Exception e) {
+                    throw new InvocationTargetException(e);
+                } catch (Error e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * 编译期生成的调用
+     */
+    public static SubscriberInvoker forIndex(@NonNull final SubscriberInfo info, final int index) {
+        return new SubscriberInvoker() {
+            @Override
+            public void invoke(Object subscriber, Object event) throws InvocationTargetException {
+                try {
+                    info.invoke(subscriber, index, event);
+                } catch (Exception e) {
+                    throw new InvocationTargetException(e);
+                } catch (Error e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * rxbus-core 不直接引用 {@code MethodHandleInvokerFactory}，Android 上不依赖 rxbus-methodhandle 时不会加载它
+     */
+    private static InvokerFactory defaultFactory() {
+        if (!METHOD_HANDLES) {
+            return REFLECTION;
+        }
+        try {
+            return (InvokerFactory) Class.forName(METHOD_HANDLE_FACTORY).newInstance();
+        } catch (Throwable ignore) {
+            return REFLECTION;
+        }
+    }
+
+    private static boolean methodHandlesSupported() {
+        try {
+            Class.forName("java.lang.invoke.MethodHandles");
+            return true;
+        } catch (Throwable ignore) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.fxmaxlove.xzr.rxbus.invoke;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * 调用参数为 int、long、double 的通道方法，只支持与方法参数类型相同的那个方法
+ * <p>异常的处理与 {@link SubscriberInvoker} 一致</p>
+ */
+public interface PrimitiveInvoker {
+
+    void invokeInt(Object subscriber, int value) throws IllegalAccessException, InvocationTargetException;
+
+    void invokeLong(Object subscriber, long value) throws IllegalAccessException, InvocationTargetException;
+
+    void invokeDouble(Object subscriber, double value) throws IllegalAccessException, InvocationTargetException;
+}
@@ -0,0 +1,19 @@
+package com.fxmaxlove.xzr.rxbus.invoke;
+
+import java.lang.reflect.Method;
+
+import io.reactivex.annotations.Nullable;
+
+/**
+ * 为通道方法创建不装箱的 {@link PrimitiveInvoker}，{@link InvokerFactory} 同时实现这个接口时
+ * {@link Invokers#forPrimitiveMethod(Method)} 使用它
+ */
+public interface PrimitiveInvokerFactory {
+
+    /**
+     * @param method 已经 {@code setAccessible(true)}、参数为 int、long 或 double 的订阅方法
+     * @return 不支持时返回 null，使用 {@link ReflectionInvokerFactory}
+     */
+    @Nullable
+    PrimitiveInvoker createPrimitive(Method method);
+}
@@ -0,0 +1,86 @@
+package com.fxmaxlove.xzr.rxbus.invoke;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 通过 {@link Method#invoke(Object, Object...)} 调用，所有环境都支持
+ */
+public final class ReflectionInvokerFactory implements InvokerFactory {
+
+    @Override
+    public SubscriberInvoker create(Method method) {
+        return new ReflectionInvoker(method);
+    }
+
+    /**
+     * 参数为 int、long、double 的方法，{@link Method#invoke(Object, Object...)} 每次调用都会装箱；
+     * Android 上没有编译期索引的通道方法走这里，做不到不分配内存
+     */
+    static PrimitiveInvoker createPrimitive(Method method) {
+        return new ReflectionPrimitiveInvoker(method);
+    }
+
+    /**
+     * 复用参数数组，避免每次调用为可变参数分配 {@code Object[]}；
+     * {@link Method#invoke(Object, Object...)} 开始时已经读取了参数，订阅方法中再次 post 覆盖它没有影响
+     */
+    private static final ThreadLocal<Object[]> ARGS = new ThreadLocal<Object[]>() {
+        @Override
+        protected Object[] initialValue() {
+            return new Object[1];
+        }
+    };
+
+    private static final class ReflectionInvoker implements SubscriberInvoker {
+        private final Method method;
+
+        ReflectionInvoker(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public void invoke(Object subscriber, Object event) throws IllegalAccessException, InvocationTargetException {
+            Object[] args = ARGS.get();
+            args[0] = event;
+            try {
+                method.invoke(subscriber, args);
+            } finally {
+                args[0] = null;
+            }
+        }
+    }
+
+    private static final class ReflectionPrimitiveInvoker implements PrimitiveInvoker {
+        private final Method method;
+
+        ReflectionPrimitiveInvoker(Method method) {
+            this.method = method;
+        }
+
+        private void invoke(Object subscriber, Object boxed) throws IllegalAccessException, InvocationTargetException {
+            Object[] args = ARGS.get();
+            args[0] = boxed;
+            try {
+                method.invoke(subscriber, args);
+            } finally {
+                args[0] = null;
+            }
+        }
+
+        @Override
+        public void invokeInt(Object subscriber, int value) throws IllegalAccessException, InvocationTargetException {
+            invoke(subscriber, value);
+        }
+
+        @Override
+        public void invokeLong(Object subscriber, long value) throws IllegalAccessException, InvocationTargetException {
+            invoke(subscriber, value);
+        }
+
+        @Override
+        public void invokeDouble(Object subscriber, double value) throws IllegalAccessException, InvocationTargetException {
+            invoke(subscriber, value);
+        }
+    }
+}
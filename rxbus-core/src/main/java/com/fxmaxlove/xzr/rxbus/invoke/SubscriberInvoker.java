@@ -0,0 +1,13 @@
+package com.fxmaxlove.xzr.rxbus.invoke;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * 调用订阅方法
+ * <p>订阅方法本身抛出的异常统一包装为 {@link InvocationTargetException}，
+ * 与 {@link java.lang.reflect.Method#invoke(Object, Object...)} 保持一致</p>
+ */
+public interface SubscriberInvoker {
+
+    void invoke(Object subscriber, Object event) throws IllegalAccessException, InvocationTargetException;
+}
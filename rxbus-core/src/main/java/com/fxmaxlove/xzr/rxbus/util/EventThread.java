@@ -0,0 +1,161 @@
+package com.fxmaxlove.xzr.rxbus.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Thread for listen event.
+ */
+
+public enum EventThread {
+    /**
+     * Main Thread(UI Thread)
+     */
+    MAIN,
+    /**
+     * New Thread. Every subscription gets its own thread; use {@link #registerSerialLanes(String, int)}
+     * to bound the number of threads.
+     */
+    NEW,
+    /**
+     * Read/Write Thread
+     */
+    IO,
+    /**
+     * Computation thread. No io block.
+     */
+    COMPUTATION,
+    /**
+     * Running at current thread by sequence
+     */
+    TRAMPOLINE,
+    /**
+     * {@link Schedulers#SINGLE}
+     */
+    SINGLE;
+
+
+    private static Scheduler mainThreadScheduler;
+
+    private static final ConcurrentMap<String, Scheduler> namedSchedulers = new ConcurrentHashMap<>();
+
+    /**
+     * Set {@link #MAIN} {@link Scheduler} in your current environment.<br/>
+     * For example in Android,you probably set @{code AndroidSchedulers.mainThread()}.
+     * <p>
+     *     Note: {@link com.fxmaxlove.xzr.rxbus.BaseBus#setMainScheduler(Scheduler)}  is a handy method for this.
+     * </p>
+     * @param scheduler {@link #MAIN} {@link Scheduler}
+     */
+    public static void setMainThreadScheduler(Scheduler scheduler) {
+        mainThreadScheduler = scheduler;
+    }
+
+    /**
+     * This factory method produce {@link Scheduler} for use.
+     * <p>
+     *     Please be careful if you use  {@link EventThread#MAIN} .
+     *     You should provide your runtime environment main thread(UI thread) before use it.
+     * </p>
+     * @param threadMode {@link EventThread} type
+     * @return {@link Scheduler}
+     */
+    public static Scheduler getScheduler(EventThread threadMode){
+        Scheduler scheduler;
+        switch (threadMode){
+            default:
+            case MAIN:
+                if (mainThreadScheduler == null) {
+                    throw new IllegalStateException("pass the main thread scheduler for your current run time environment before use");
+                }
+                scheduler = mainThreadScheduler;
+                break;
+            case NEW:scheduler= Schedulers.newThread();break;
+            case IO:scheduler=Schedulers.io();break;
+            case COMPUTATION:scheduler=Schedulers.computation();break;
+            case TRAMPOLINE:scheduler=Schedulers.trampoline();break;
+            case SINGLE:scheduler=Schedulers.single();
+        }
+        return scheduler;
+    }
+
+    /**
+     * Register a {@link Scheduler} that {@link com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe#executor()}
+     * can pick by name. Replaces a scheduler registered before under the same name; subscriptions
+     * already made keep the old one.
+     */
+    public static void registerScheduler(@NonNull String name, @NonNull Scheduler scheduler) {
+        checkName(name);
+        ObjectHelper.requireNonNull(scheduler, "scheduler == null");
+        namedSchedulers.put(name, scheduler);
+    }
+
+    /**
+     * Register an {@link Executor} by name, for example a bounded pool or, on JDK 21+,
+     * {@code Executors.newVirtualThreadPerTaskExecutor()}.
+     * <p>
+     *     Events of one subscriber are still delivered one at a time and in order, on any thread of the executor.
+     * </p>
+     * @see #registerScheduler(String, Scheduler)
+     */
+    public static void registerExecutor(@NonNull String name, @NonNull Executor executor) {
+        ObjectHelper.requireNonNull(executor, "executor == null");
+        registerScheduler(name, Schedulers.from(executor));
+    }
+
+    /**
+     * Register {@code lanes} single threads by name: every subscriber is pinned to one lane,
+     * so it always runs on the same thread, and a slow subscriber only delays the others on its lane.
+     * <p>
+     *     Unlike {@link #registerScheduler(String, Scheduler)} this does not replace an existing registration,
+     *     since the replaced lanes would keep their threads. To change the lanes, {@link #unregister(String)}
+     *     the name and shut the returned scheduler down first.
+     * </p>
+     * @return the registered scheduler, {@link SerialLaneScheduler#shutdown()} stops its threads
+     * @throws IllegalStateException if a scheduler is already registered under {@code name}
+     * @see SerialLaneScheduler
+     */
+    public static SerialLaneScheduler registerSerialLanes(@NonNull String name, int lanes) {
+        checkName(name);
+        SerialLaneScheduler scheduler = new SerialLaneScheduler(name, lanes);
+        if (namedSchedulers.putIfAbsent(name, scheduler) != null) {
+            scheduler.shutdown();
+            throw new IllegalStateException("a scheduler is already registered as \"" + name + "\"");
+        }
+        return scheduler;
+    }
+
+    /**
+     * @return the scheduler that was registered under {@code name}, or null
+     */
+    public static Scheduler unregister(@NonNull String name) {
+        ObjectHelper.requireNonNull(name, "name == null");
+        return namedSchedulers.remove(name);
+    }
+
+    /**
+     * The {@link Scheduler} registered under {@code name}.
+     * @throws IllegalStateException if nothing is registered under {@code name}
+     */
+    public static Scheduler getScheduler(@NonNull String name) {
+        ObjectHelper.requireNonNull(name, "name == null");
+        Scheduler scheduler = namedSchedulers.get(name);
+        if (scheduler == null) {
+            throw new IllegalStateException("no scheduler registered as \"" + name + "\"");
+        }
+        return scheduler;
+    }
+
+    private static void checkName(String name) {
+        ObjectHelper.requireNonNull(name, "name == null");
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("name must not be empty");
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.fxmaxlove.xzr.rxbus.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * {@link Scheduler} for {@link EventThread#MAIN} that delivers in frames.
+ * <p>
+ *     Tasks of all workers, that is of all {@code observeOn} subscribers, go to one shared queue.
+ *     The queue is drained in one pass per frame, so a burst of events costs one main thread message
+ *     per frame instead of one per event per subscriber. A drain stops when it has used up its time
+ *     budget; the remaining tasks run in the next frame, in the same order.
+ * </p>
+ * <p>
+ *     Frames come from a {@link FrameSource}: on Android a {@code Choreographer} frame callback,
+ *     on the JVM any {@link Executor}, for example a fake main thread in a test.
+ * </p>
+ * <pre>
+ * BaseBus.setMainScheduler(FrameScheduler.create(FrameScheduler.executor(mainExecutor), 8, TimeUnit.MILLISECONDS));
+ * </pre>
+ */
+public final class FrameScheduler extends Scheduler {
+
+    /**
+     * Runs the drain of a {@link FrameScheduler} on the main thread, once per requested frame.
+     */
+    public interface FrameSource {
+        /**
+         * Called from any thread, at most once until {@code drain} has started running.
+         */
+        void requestFrame(@NonNull Runnable drain);
+    }
+
+    private final FrameSource frameSource;
+    private final long budgetNanos;
+    private final Queue<FrameTask> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean frameRequested = new AtomicBoolean();
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+    /** written only by the drain */
+    private volatile long frames;
+
+    private FrameScheduler(FrameSource frameSource, long budgetNanos) {
+        this.frameSource = frameSource;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * @param budget time a single drain may take, 0 drains everything that is queued
+     */
+    public static FrameScheduler create(@NonNull FrameSource frameSource, long budget, @NonNull TimeUnit unit) {
+        ObjectHelper.requireNonNull(frameSource, "frameSource == null");
+        ObjectHelper.requireNonNull(unit, "unit == null");
+        if (budget < 0) {
+            throw new IllegalArgumentException("budget >= 0 required but it was " + budget);
+        }
+        return new FrameScheduler(frameSource, unit.toNanos(budget));
+    }
+
+    /**
+     * Every frame is one task on {@code executor}.
+     */
+    public static FrameSource executor(@NonNull final Executor executor) {
+        ObjectHelper.requireNonNull(executor, "executor == null");
+        return new FrameSource() {
+            @Override
+            public void requestFrame(@NonNull Runnable drain) {
+                executor.execute(drain);
+            }
+        };
+    }
+
+    /**
+     * Number of drains run so far.
+     */
+    public long getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * Tasks waiting for the next frame.
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new FrameWorker();
+    }
+
+    private void enqueue(FrameTask task) {
+        queue.offer(task);
+        if (frameRequested.compareAndSet(false, true)) {
+            frameSource.requestFrame(drain);
+        }
+    }
+
+    /**
+     * Runs on the main thread.
+     */
+    void drain() {
+        frameRequested.set(false);
+        frames++;
+        long deadline = budgetNanos == 0 ? 0 : System.nanoTime() + budgetNanos;
+        FrameTask task;
+        while ((task = queue.poll()) != null) {
+            task.run();
+            if (deadline != 0 && System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        if (!queue.isEmpty() && frameRequested.compareAndSet(false, true)) {
+            frameSource.requestFrame(drain);
+        }
+    }
+
+    private final class FrameWorker extends Worker {
+        private volatile boolean disposed;
+
+        @Override
+        public Disposable schedule(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+            ObjectHelper.requireNonNull(run, "run == null");
+            ObjectHelper.requireNonNull(unit, "unit == null");
+            if (disposed) {
+                return Disposables.disposed();
+            }
+            final FrameTask task = new FrameTask(this, run);
+            if (delay <= 0) {
+                enqueue(task);
+                return task;
+            }
+            // delayed tasks wait off the main thread and then join the next frame
+            task.timer = Schedulers.computation().scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    enqueue(task);
+                }
+            }, delay, unit);
+            return task;
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+
+    /**
+     * Disposed tasks stay in the queue and are skipped by the drain.
+     */
+    private static final class FrameTask implements Runnable, Disposable {
+        private final FrameWorker worker;
+        private final Runnable run;
+        volatile Disposable timer;
+        private volatile boolean disposed;
+
+        FrameTask(FrameWorker worker, Runnable run) {
+            this.worker = worker;
+            this.run = run;
+        }
+
+        @Override
+        public void run() {
+            if (disposed || worker.disposed) {
+                return;
+            }
+            try {
+                run.run();
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                RxJavaPlugins.onError(e);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+            Disposable t = timer;
+            if (t != null) {
+                t.dispose();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
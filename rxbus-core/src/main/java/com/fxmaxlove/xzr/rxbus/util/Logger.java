@@ -0,0 +1,24 @@
+package com.fxmaxlove.xzr.rxbus.util;
+
+import io.reactivex.annotations.Nullable;
+
+/**
+ * Log output of the bus, installed with {@link RxBusLog#setLogger(Logger)}.
+ * <p>
+ *     Levels use the values of {@code android.util.Log}, so an Android implementation can pass them through.
+ * </p>
+ */
+public interface Logger {
+
+    int DEBUG = 3;
+
+    int ERROR = 6;
+
+    /**
+     * Asked once when the logger is installed, not per message: a level disabled here costs
+     * nothing at the call sites, including building the message.
+     */
+    boolean isLoggable(int level);
+
+    void log(int level, String tag, String message, @Nullable Throwable throwable);
+}
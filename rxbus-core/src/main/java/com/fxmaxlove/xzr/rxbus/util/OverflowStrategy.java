@@ -0,0 +1,28 @@
+package com.fxmaxlove.xzr.rxbus.util;
+
+/**
+ * Strategy for a subscriber's bounded buffer of {@code FlowableBus} when it is full.
+ */
+public enum OverflowStrategy {
+    /**
+     * Use the strategy the bus was created with.
+     */
+    DEFAULT,
+    /**
+     * Drop the oldest buffered event to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * Drop the most recently buffered event and buffer the new one in its place, the same as
+     * {@link io.reactivex.BackpressureOverflowStrategy#DROP_LATEST}.
+     */
+    DROP_LATEST,
+    /**
+     * Keep only the latest undelivered event.
+     */
+    LATEST,
+    /**
+     * Terminate the subscription with {@link io.reactivex.exceptions.MissingBackpressureException}.
+     */
+    ERROR
+}
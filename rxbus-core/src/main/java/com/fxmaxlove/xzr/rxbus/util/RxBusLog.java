@@ -0,0 +1,81 @@
+package com.fxmaxlove.xzr.rxbus.util;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.annotations.Nullable;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * Logging used inside the bus.
+ * <p>
+ *     By default only errors are printed, to {@code System.err}. Callers build debug messages only
+ *     after checking {@link #isDebugEnabled()}, so with debug off the cost is a single field read.
+ * </p>
+ */
+public final class RxBusLog {
+
+    /**
+     * Logs nothing at all.
+     */
+    public static final Logger NONE = new Logger() {
+        @Override
+        public boolean isLoggable(int level) {
+            return false;
+        }
+
+        @Override
+        public void log(int level, String tag, String message, @Nullable Throwable throwable) {
+        }
+    };
+
+    /**
+     * Errors to {@code System.err}, debug disabled.
+     */
+    public static final Logger SYSTEM_ERR = new Logger() {
+        @Override
+        public boolean isLoggable(int level) {
+            return level >= ERROR;
+        }
+
+        @Override
+        public void log(int level, String tag, String message, @Nullable Throwable throwable) {
+            System.err.println(tag + ": " + message);
+            if (throwable != null) {
+                throwable.printStackTrace();
+            }
+        }
+    };
+
+    private static volatile Logger logger = SYSTEM_ERR;
+    private static volatile boolean debug;
+    private static volatile boolean error = true;
+
+    private RxBusLog() {
+    }
+
+    public static void setLogger(@NonNull Logger logger) {
+        ObjectHelper.requireNonNull(logger, "logger == null");
+        RxBusLog.logger = logger;
+        debug = logger.isLoggable(Logger.DEBUG);
+        error = logger.isLoggable(Logger.ERROR);
+    }
+
+    public static Logger getLogger() {
+        return logger;
+    }
+
+    public static boolean isDebugEnabled() {
+        return debug;
+    }
+
+    public static void d(String tag, String message) {
+        if (debug) {
+            logger.log(Logger.DEBUG, tag, message, null);
+        }
+    }
+
+    public static void e(String tag, String message, @Nullable Throwable throwable) {
+        if (error) {
+            logger.log(Logger.ERROR, tag, message, throwable);
+        }
+    }
+}
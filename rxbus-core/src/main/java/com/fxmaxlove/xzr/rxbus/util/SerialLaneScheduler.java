@@ -0,0 +1,113 @@
+package com.fxmaxlove.xzr.rxbus.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * A fixed number of single-thread lanes shared by many subscribers.
+ * <p>
+ *     Each {@link Worker}, that is each {@code observeOn} subscription, is pinned to the lane with the fewest
+ *     active workers when it is created. Events of one subscriber therefore run in order on one thread,
+ *     the number of threads stays bounded however many subscribers there are, and a slow subscriber
+ *     only holds up the subscribers sharing its lane.
+ * </p>
+ * @see EventThread#registerSerialLanes(String, int)
+ */
+public final class SerialLaneScheduler extends Scheduler {
+
+    private final ExecutorService[] executors;
+    private final Scheduler[] lanes;
+    private final AtomicIntegerArray activeWorkers;
+
+    /**
+     * @param name prefix of the lane thread names
+     * @param lanes number of lane threads
+     */
+    public SerialLaneScheduler(@NonNull final String name, int lanes) {
+        ObjectHelper.requireNonNull(name, "name == null");
+        ObjectHelper.verifyPositive(lanes, "lanes");
+        this.executors = new ExecutorService[lanes];
+        this.lanes = new Scheduler[lanes];
+        this.activeWorkers = new AtomicIntegerArray(lanes);
+        for (int i = 0; i < lanes; i++) {
+            final String threadName = "rxbus-" + name + "-" + i;
+            executors[i] = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.lanes[i] = Schedulers.from(executors[i]);
+        }
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    @Override
+    public Worker createWorker() {
+        int lane = 0;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < lanes.length; i++) {
+            int active = activeWorkers.get(i);
+            if (active < min) {
+                min = active;
+                lane = i;
+            }
+        }
+        activeWorkers.incrementAndGet(lane);
+        return new LaneWorker(lanes[lane].createWorker(), lane);
+    }
+
+    /**
+     * Stops the lane threads; tasks not yet started are dropped.
+     */
+    @Override
+    public void shutdown() {
+        for (ExecutorService executor : executors) {
+            executor.shutdownNow();
+        }
+    }
+
+    private final class LaneWorker extends Worker {
+        private final Worker actual;
+        private final int lane;
+        private final AtomicBoolean disposed = new AtomicBoolean();
+
+        LaneWorker(Worker actual, int lane) {
+            this.actual = actual;
+            this.lane = lane;
+        }
+
+        @Override
+        public Disposable schedule(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+            return actual.schedule(run, delay, unit);
+        }
+
+        @Override
+        public void dispose() {
+            if (disposed.compareAndSet(false, true)) {
+                activeWorkers.decrementAndGet(lane);
+                actual.dispose();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed.get();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.functions.Consumer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 记录的事件按顺序回放
+ */
+public class EventJournalTest {
+
+    private static final int EVENTS = 10;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    static final class Tick {
+        final long value;
+
+        Tick(long value) {
+            this.value = value;
+        }
+    }
+
+    static final class TickCodec implements EventCodec<Tick> {
+        @Override
+        public void encode(Tick event, ByteBuffer buffer) {
+            buffer.putLong(event.value);
+        }
+
+        @Override
+        public Tick decode(ByteBuffer buffer) {
+            return new Tick(buffer.getLong());
+        }
+    }
+
+    @Test
+    public void recordAndReplay() throws IOException {
+        File file = folder.newFile("ticks.journal");
+        record(new EventJournal.Builder(file).codec(Tick.class, new TickCodec()));
+        assertReplayed(file);
+    }
+
+    @Test
+    public void journalsFromOneBuilderDefineTheirTypes() throws IOException {
+        File file = folder.newFile("ticks.journal");
+        EventJournal.Builder builder = new EventJournal.Builder(file).codec(Tick.class, new TickCodec());
+        record(builder);
+        record(builder);
+        assertReplayed(file);
+    }
+
+    private static void record(EventJournal.Builder builder) throws IOException {
+        RxBus bus = new RxBus();
+        EventJournal journal = builder.build();
+        bus.setJournal(journal);
+        for (int i = 0; i < EVENTS; i++) {
+            bus.post(new Tick(i));
+        }
+        journal.close();
+    }
+
+    private static void assertReplayed(File file) throws IOException {
+        RxBus bus = new RxBus();
+        final List<Long> values = new ArrayList<>();
+        bus.ofType(Tick.class).subscribe(new Consumer<Tick>() {
+            @Override
+            public void accept(Tick tick) {
+                values.add(tick.value);
+            }
+        });
+        JournalReplayer.Report report = new JournalReplayer.Builder(file)
+                .codec(Tick.class, new TickCodec())
+                .asFastAsPossible()
+                .build()
+                .replay(bus);
+        assertEquals(EVENTS, report.getPostedCount());
+        assertEquals(0, report.getSkippedCount());
+        assertEquals(EVENTS, values.size());
+        for (int i = 0; i < EVENTS; i++) {
+            assertEquals(i, values.get(i).longValue());
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe;
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+import com.fxmaxlove.xzr.rxbus.util.OverflowStrategy;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link PooledEvent} 的引用计数：送达、保存和丢弃之后都回到 0，保存的事件不会在读取时被复用
+ * <p>调试模式下释放的事件不再复用，{@link PooledEvent#isReleased()} 一直为 true，可以逐个检查</p>
+ */
+public class PooledEventTest {
+
+    private static final int SUBSCRIBERS = 3;
+    private static final int POSTS = 1000;
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    static final class Tick extends PooledEvent {
+        static final EventPool.Factory<Tick> FACTORY = new EventPool.Factory<Tick>() {
+            @Override
+            public Tick create() {
+                return new Tick();
+            }
+        };
+
+        long value;
+
+        long value() {
+            checkAlive();
+            return value;
+        }
+
+        @Override
+        protected void reset() {
+            value = -1;
+        }
+    }
+
+    public static final class Receiver {
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicInteger invalid = new AtomicInteger();
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        public void onTrampoline(Tick tick) {
+            receive(tick);
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.IO)
+        public void onIo(Tick tick) {
+            receive(tick);
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.COMPUTATION)
+        public void onComputation(Tick tick) {
+            receive(tick);
+        }
+
+        void receive(Tick tick) {
+            if (tick.isReleased() || tick.value() < 0) {
+                invalid.incrementAndGet();
+            }
+            received.incrementAndGet();
+        }
+    }
+
+    public static final class RateLimited {
+        final AtomicInteger received = new AtomicInteger();
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE, debounceMillis = 5)
+        public void onDebounce(Tick tick) {
+            received.incrementAndGet();
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE, sampleMillis = 5)
+        public void onSample(Tick tick) {
+            received.incrementAndGet();
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE, distinct = true)
+        public void onDistinct(Tick tick) {
+            received.incrementAndGet();
+        }
+    }
+
+    public static final class SlowReceiver {
+        final AtomicInteger received = new AtomicInteger();
+
+        @RxSubscribe(observeOnThread = EventThread.SINGLE, bufferSize = 4)
+        public void onOldest(Tick tick) {
+            receive();
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.SINGLE, bufferSize = 4, overflow = OverflowStrategy.DROP_LATEST)
+        public void onLatestDropped(Tick tick) {
+            receive();
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.SINGLE, overflow = OverflowStrategy.LATEST)
+        public void onLatest(Tick tick) {
+            receive();
+        }
+
+        void receive() {
+            received.incrementAndGet();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        EventPool.setDebug(false);
+    }
+
+    @Test
+    public void syncDelivery() {
+        EventPool.setDebug(true);
+        RxBus bus = new RxBus();
+        final AtomicInteger received = new AtomicInteger();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            bus.ofType(Tick.class).subscribe(new Consumer<Tick>() {
+                @Override
+                public void accept(Tick tick) {
+                    assertFalse(tick.isReleased());
+                    received.incrementAndGet();
+                }
+            });
+        }
+        List<Tick> posted = post(bus, POSTS);
+        assertEquals(SUBSCRIBERS * POSTS, received.get());
+        for (Tick tick : posted) {
+            assertTrue(tick.isReleased());
+        }
+    }
+
+    @Test
+    public void observeOnDelivery() throws InterruptedException {
+        EventPool.setDebug(true);
+        RxBus bus = new RxBus();
+        final CountDownLatch received = new CountDownLatch(SUBSCRIBERS * POSTS);
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            bus.toObservable(Tick.class, Schedulers.io()).subscribe(new Consumer<Tick>() {
+                @Override
+                public void accept(Tick tick) {
+                    assertFalse(tick.isReleased());
+                    received.countDown();
+                }
+            });
+        }
+        List<Tick> posted = post(bus, POSTS);
+        assertTrue(received.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        awaitReleased(posted);
+    }
+
+    @Test
+    public void subscriberMethods() throws InterruptedException {
+        EventPool.setDebug(true);
+        deliver(new RxBus());
+        deliver(new RxBus.Builder().typeIndexed().parallelFanOut(2).build());
+        deliver(new RxBus.Builder().async(AsyncPolicy.bufferSize(64)).build());
+    }
+
+    @Test
+    public void conflate() throws InterruptedException {
+        EventPool.setDebug(true);
+        RxBus bus = new RxBus.Builder().conflate(Tick.class).build();
+        Receiver receiver = new Receiver();
+        bus.register(receiver);
+        List<Tick> posted = post(bus, POSTS);
+        awaitReleased(posted);
+        bus.unregister(receiver);
+        assertEquals(0, receiver.invalid.get());
+        assertTrue(receiver.received.get() > 0);
+    }
+
+    @Test
+    public void disposeReleasesQueuedEvents() throws InterruptedException {
+        EventPool.setDebug(true);
+        RxBus bus = new RxBus();
+        assertQueuedEventsReleased(bus, bus.toObservable(Tick.class, Schedulers.single()));
+        FlowableBus flowableBus = new FlowableBus(POSTS, OverflowStrategy.DROP_OLDEST);
+        assertQueuedEventsReleased(flowableBus,
+                flowableBus.toFlowable(Tick.class, Schedulers.single()).toObservable());
+        RxBus conflating = new RxBus();
+        assertQueuedEventsReleased(conflating, conflating.toConflatedObservable(Tick.class, Schedulers.single(),
+                new Function<Tick, Object>() {
+                    @Override
+                    public Object apply(Tick tick) {
+                        return tick.value;
+                    }
+                }));
+    }
+
+    @Test
+    public void rateControlReleasesDroppedEvents() throws InterruptedException {
+        EventPool.setDebug(true);
+        RxBus bus = new RxBus();
+        RateLimited subscriber = new RateLimited();
+        bus.register(subscriber);
+        List<Tick> posted = post(bus, POSTS);
+        Thread.sleep(50);
+        bus.unregister(subscriber);
+        awaitReleased(posted);
+        assertTrue(subscriber.received.get() > 0);
+    }
+
+    @Test
+    public void overflowReleasesDroppedEvents() throws InterruptedException {
+        EventPool.setDebug(true);
+        FlowableBus bus = new FlowableBus(16, OverflowStrategy.DROP_OLDEST);
+        SlowReceiver receiver = new SlowReceiver();
+        bus.register(receiver);
+        List<Tick> posted = post(bus, POSTS);
+        assertTrue(bus.getDroppedCount(Tick.class) > 0);
+        Thread.sleep(50);
+        bus.unregister(receiver);
+        awaitReleased(posted);
+        assertTrue(receiver.received.get() > 0);
+    }
+
+    @Test
+    public void stickyReadsAreRetained() throws InterruptedException {
+        final RxBus bus = new RxBus.Builder().defaultStickyPolicy(StickyPolicy.lastN(1)).build();
+        final EventPool<Tick> pool = bus.pool(Tick.class, Tick.FACTORY);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= 100000; i++) {
+                    Tick tick = pool.acquire();
+                    tick.value = i;
+                    bus.postSticky(tick);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<Tick> sticky = bus.getSticky(Tick.class);
+            if (sticky == null) {
+                continue;
+            }
+            for (Tick tick : sticky) {
+                if (tick.isReleased() || tick.value < 1) {
+                    failure.set("read a recycled event: " + tick.value);
+                }
+                tick.release();
+            }
+        }
+        writer.join();
+        assertNull(failure.get());
+        List<Tick> kept = bus.getSticky(Tick.class);
+        assertEquals(1, kept.size());
+        assertEquals(100000, kept.get(0).value);
+        assertEquals(2, kept.get(0).refCount());
+        kept.get(0).release();
+        bus.clearSticky();
+        assertTrue(kept.get(0).isReleased());
+    }
+
+    @Test
+    public void replayNeverHandsOutRecycledEvents() throws InterruptedException {
+        final ReplayBus bus = new ReplayBus(StickyPolicy.lastN(3));
+        final EventPool<Tick> pool = bus.pool(Tick.class, Tick.FACTORY);
+        final AtomicInteger invalid = new AtomicInteger();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= 100000; i++) {
+                    Tick tick = pool.acquire();
+                    tick.value = i;
+                    bus.post(tick);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            bus.ofType(Tick.class).subscribe(new Consumer<Tick>() {
+                @Override
+                public void accept(Tick tick) {
+                    if (tick.isReleased() || tick.value < 1) {
+                        invalid.incrementAndGet();
+                    }
+                }
+            }).dispose();
+        }
+        writer.join();
+        assertEquals(0, invalid.get());
+        assertTrue(pool.createdCount() < 100000);
+    }
+
+    @Test
+    public void replayDoesNotBlockPosts() throws InterruptedException {
+        EventPool.setDebug(true);
+        final BehaviorBus bus = new BehaviorBus();
+        final EventPool<Tick> pool = bus.pool(Tick.class, Tick.FACTORY);
+        // 没有订阅者时 post 不经过 relay
+        Disposable keepAlive = bus.ofType(Tick.class).subscribe();
+        Tick first = pool.acquire();
+        first.value = 1;
+        bus.post(first);
+        final AtomicInteger invalid = new AtomicInteger();
+        final AtomicReference<Boolean> posted = new AtomicReference<>();
+        bus.ofType(Tick.class).take(1).subscribe(new Consumer<Tick>() {
+            @Override
+            public void accept(Tick tick) throws InterruptedException {
+                // 回放中等待另一个线程 post，它替换并释放正在回放的事件
+                Thread writer = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Tick next = pool.acquire();
+                        next.value = 2;
+                        bus.post(next);
+                    }
+                });
+                writer.start();
+                writer.join(TIMEOUT_MILLIS);
+                posted.set(!writer.isAlive());
+                if (tick.isReleased() || tick.value() != 1) {
+                    invalid.incrementAndGet();
+                }
+            }
+        });
+        keepAlive.dispose();
+        assertTrue(posted.get());
+        assertEquals(0, invalid.get());
+        assertTrue(first.isReleased());
+    }
+
+    @Test
+    public void debugModeDetectsUseAfterRelease() {
+        EventPool.setDebug(true);
+        RxBus bus = new RxBus();
+        EventPool<Tick> pool = bus.pool(Tick.class, Tick.FACTORY);
+        final AtomicReference<Tick> escaped = new AtomicReference<>();
+        bus.ofType(Tick.class).subscribe(new Consumer<Tick>() {
+            @Override
+            public void accept(Tick tick) {
+                escaped.set(tick);
+            }
+        });
+        Tick tick = pool.acquire();
+        tick.value = 1;
+        bus.post(tick);
+        assertSame(tick, escaped.get());
+        try {
+            tick.value();
+            fail("access after release");
+        } catch (IllegalStateException expected) {
+            assertNotNull(expected.getCause());
+        }
+        try {
+            bus.post(tick);
+            fail("post after release");
+        } catch (IllegalStateException expected) {
+            // 已经释放的事件不能再 post
+        }
+        assertFalse(pool.acquire() == tick);
+    }
+
+    private static void deliver(RxBus bus) throws InterruptedException {
+        Receiver receiver = new Receiver();
+        bus.register(receiver);
+        List<Tick> posted = post(bus, POSTS);
+        awaitReleased(posted);
+        bus.unregister(receiver);
+        assertEquals(0, receiver.invalid.get());
+        assertEquals(SUBSCRIBERS * POSTS, receiver.received.get());
+    }
+
+    /**
+     * 订阅者处理第一个事件时取消订阅，其余还在排队的事件也要回到池中
+     */
+    private static void assertQueuedEventsReleased(RxBus bus, Observable<Tick> observable)
+            throws InterruptedException {
+        final CountDownLatch receiving = new CountDownLatch(1);
+        final CountDownLatch disposed = new CountDownLatch(1);
+        Disposable disposable = observable.subscribe(new Consumer<Tick>() {
+            @Override
+            public void accept(Tick tick) {
+                receiving.countDown();
+                try {
+                    disposed.await();
+                } catch (InterruptedException e) {
+                    // 取消订阅时 worker 可能中断正在运行的任务
+                }
+            }
+        });
+        List<Tick> posted = post(bus, POSTS);
+        assertTrue(receiving.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        disposable.dispose();
+        disposed.countDown();
+        awaitReleased(posted);
+    }
+
+    private static List<Tick> post(RxBus bus, int count) {
+        EventPool<Tick> pool = bus.pool(Tick.class, Tick.FACTORY);
+        List<Tick> posted = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Tick tick = pool.acquire();
+            tick.value = i;
+            posted.add(tick);
+            bus.post(tick);
+        }
+        return posted;
+    }
+
+    private static void awaitReleased(List<Tick> events) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        for (Tick tick : events) {
+            while (!tick.isReleased() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue("refCount " + tick.refCount() + " of " + tick.value, tick.isReleased());
+        }
+    }
+}
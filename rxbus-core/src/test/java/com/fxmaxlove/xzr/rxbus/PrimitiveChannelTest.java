@@ -0,0 +1,148 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe;
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 通道按 post 的顺序送达，切换线程时监听者的队列扩容不丢值
+ */
+public class PrimitiveChannelTest {
+
+    private static final int VALUES = 1000;
+
+    public static final class ChannelSubscriber {
+        final AtomicInteger ints = new AtomicInteger();
+        final AtomicInteger longs = new AtomicInteger();
+        final AtomicInteger doubles = new AtomicInteger();
+
+        @RxSubscribe(channel = "ints", observeOnThread = EventThread.TRAMPOLINE)
+        public void onInt(int value) {
+            ints.addAndGet(value);
+        }
+
+        @RxSubscribe(channel = "longs", observeOnThread = EventThread.TRAMPOLINE)
+        public void onLong(long value) {
+            longs.addAndGet((int) value);
+        }
+
+        @RxSubscribe(channel = "doubles", observeOnThread = EventThread.TRAMPOLINE)
+        public void onDouble(double value) {
+            doubles.addAndGet((int) value);
+        }
+    }
+
+    public static final class StickyChannelSubscriber {
+        @RxSubscribe(channel = "ints", isSticky = true)
+        public void onInt(int value) {
+        }
+    }
+
+    public static final class RateLimitedChannelSubscriber {
+        @RxSubscribe(channel = "ints", debounceMillis = 10)
+        public void onInt(int value) {
+        }
+    }
+
+    @Test
+    public void scheduledListenersKeepOrder() throws InterruptedException {
+        RxBus bus = new RxBus();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        final AtomicInteger outOfOrder = new AtomicInteger();
+        bus.intChannel("ints").subscribe(new IntChannel.Listener() {
+            int expected;
+
+            @Override
+            public void onValue(int value) throws Exception {
+                // 第一个值阻塞，之后的值在队列中积压，队列扩容多次
+                started.await();
+                if (value != expected++) {
+                    outOfOrder.incrementAndGet();
+                }
+                if (expected == VALUES) {
+                    done.countDown();
+                }
+            }
+        }, Schedulers.single());
+        bus.longChannel("longs").subscribe(new LongChannel.Listener() {
+            long expected;
+
+            @Override
+            public void onValue(long value) throws Exception {
+                started.await();
+                if (value != expected++) {
+                    outOfOrder.incrementAndGet();
+                }
+                if (expected == VALUES) {
+                    done.countDown();
+                }
+            }
+        }, Schedulers.single());
+        bus.doubleChannel("doubles").subscribe(new DoubleChannel.Listener() {
+            double expected;
+
+            @Override
+            public void onValue(double value) throws Exception {
+                started.await();
+                if (value != expected++) {
+                    outOfOrder.incrementAndGet();
+                }
+                if (expected == VALUES) {
+                    done.countDown();
+                }
+            }
+        }, Schedulers.single());
+        for (int i = 0; i < VALUES; i++) {
+            bus.intChannel("ints").post(i);
+            bus.longChannel("longs").post(i);
+            bus.doubleChannel("doubles").post(i);
+        }
+        started.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, outOfOrder.get());
+    }
+
+    @Test
+    public void subscriberMethods() {
+        RxBus bus = new RxBus();
+        ChannelSubscriber subscriber = new ChannelSubscriber();
+        bus.register(subscriber);
+        bus.intChannel("ints").post(1);
+        bus.longChannel("longs").post(2);
+        bus.doubleChannel("doubles").post(3);
+        bus.unregister(subscriber);
+        bus.intChannel("ints").post(1);
+        assertEquals(1, subscriber.ints.get());
+        assertEquals(2, subscriber.longs.get());
+        assertEquals(3, subscriber.doubles.get());
+    }
+
+    @Test
+    public void channelMethodsRejectStickyAndRateControl() {
+        RxBus bus = new RxBus();
+        try {
+            bus.register(new StickyChannelSubscriber());
+            fail("sticky channel method");
+        } catch (IllegalArgumentException expected) {
+            // 通道方法不按事件类型订阅，isSticky 不会生效
+        }
+        try {
+            bus.register(new RateLimitedChannelSubscriber());
+            fail("rate limited channel method");
+        } catch (IllegalArgumentException expected) {
+            // 限流属性同样不会生效
+        }
+    }
+}
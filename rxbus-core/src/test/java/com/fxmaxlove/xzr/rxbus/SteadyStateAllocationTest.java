@@ -0,0 +1,206 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import com.fxmaxlove.xzr.rxbus.annotation.RxSubscribe;
+import com.fxmaxlove.xzr.rxbus.index.ChannelSubscriberInfo;
+import com.fxmaxlove.xzr.rxbus.index.SubscriberMethodInfo;
+import com.fxmaxlove.xzr.rxbus.util.EventThread;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * post 到在发送线程接收（{@link EventThread#TRAMPOLINE}）的订阅者，预热之后不再分配内存
+ * <p>JIT 编译偶尔在发送线程上分配几十个字节，所以测量几轮，只要有一轮为 0；
+ * 每次 post 都分配时每一轮都至少有 {@link #POSTS} 个字节</p>
+ * <p>切换线程接收的订阅者不在测试范围内：每次唤醒接收线程时 {@code Scheduler.Worker#schedule} 都会创建一个任务</p>
+ */
+public class SteadyStateAllocationTest {
+
+    private static final int WARMUP_POSTS = 200000;
+    private static final int POSTS = 100000;
+    private static final int ROUNDS = 5;
+    private static final Object[] EVENTS = {new Ping(), new Pong()};
+
+    private com.sun.management.ThreadMXBean threads;
+
+    static final class Ping {
+    }
+
+    static final class Pong {
+    }
+
+    static final class Quote extends PooledEvent {
+        static final EventPool.Factory<Quote> FACTORY = new EventPool.Factory<Quote>() {
+            @Override
+            public Quote create() {
+                return new Quote();
+            }
+        };
+
+        long price;
+
+        @Override
+        protected void reset() {
+            price = 0;
+        }
+    }
+
+    public static final class Subscriber {
+        long received;
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        public void onPing(Ping ping) {
+            received++;
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        public void onPong(Pong pong) {
+            received++;
+        }
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE)
+        public void onQuote(Quote quote) {
+            received += quote.price;
+        }
+    }
+
+    /**
+     * 通道方法只有通过编译期索引调用时才不装箱，这里的测试不运行注解处理器，
+     * 所以手写了 rxbus-compiler 会生成的 {@link ChannelSubscriber_RxIndex}
+     */
+    public static final class ChannelSubscriber {
+        long received;
+
+        @RxSubscribe(observeOnThread = EventThread.TRAMPOLINE, channel = "ticks")
+        public void onTick(int tick) {
+            received += tick;
+        }
+    }
+
+    public static final class ChannelSubscriber_RxIndex implements ChannelSubscriberInfo {
+
+        private static final SubscriberMethodInfo[] METHODS = {
+                new SubscriberMethodInfo.Builder("onTick", Integer.class, EventThread.TRAMPOLINE, false)
+                        .channel("ticks").build(),
+        };
+
+        @Override
+        public SubscriberMethodInfo[] getSubscriberMethods() {
+            return METHODS;
+        }
+
+        @Override
+        public void invoke(Object subscriber, int index, Object event) throws Exception {
+            ChannelSubscriber target = (ChannelSubscriber) subscriber;
+            switch (index) {
+                case 0:
+                    target.onTick((Integer) event);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown subscriber method index " + index);
+            }
+        }
+
+        @Override
+        public void invokeInt(Object subscriber, int index, int value) throws Exception {
+            ChannelSubscriber target = (ChannelSubscriber) subscriber;
+            switch (index) {
+                case 0:
+                    target.onTick(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown int channel method index " + index);
+            }
+        }
+
+        @Override
+        public void invokeLong(Object subscriber, int index, long value) throws Exception {
+            throw new IllegalArgumentException("Unknown long channel method index " + index);
+        }
+
+        @Override
+        public void invokeDouble(Object subscriber, int index, double value) throws Exception {
+            throw new IllegalArgumentException("Unknown double channel method index " + index);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void sharedRelay() {
+        assertNoAllocation(new RxBus(), Mode.EVENTS);
+    }
+
+    @Test
+    public void typeIndexed() {
+        assertNoAllocation(RxBus.typeIndexed(), Mode.EVENTS);
+    }
+
+    @Test
+    public void sharded() {
+        assertNoAllocation(new RxBus.Builder().sharded(4).build(), Mode.EVENTS);
+    }
+
+    @Test
+    public void intChannel() {
+        assertNoAllocation(new RxBus(), Mode.CHANNEL);
+    }
+
+    @Test
+    public void pooledEvents() {
+        assertNoAllocation(new RxBus(), Mode.POOLED);
+    }
+
+    private enum Mode {
+        EVENTS, CHANNEL, POOLED
+    }
+
+    private void assertNoAllocation(RxBus bus, Mode mode) {
+        for (int i = 0; i < 10; i++) {
+            bus.register(new Subscriber());
+            bus.register(new ChannelSubscriber());
+        }
+        IntChannel ticks = bus.intChannel("ticks");
+        EventPool<Quote> quotes = bus.pool(Quote.class, Quote.FACTORY);
+        post(bus, ticks, quotes, mode, WARMUP_POSTS);
+        long thread = Thread.currentThread().getId();
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS && allocated > 0; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            post(bus, ticks, quotes, mode, POSTS);
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(thread) - before);
+        }
+        assertEquals(mode + " allocated bytes", 0, allocated);
+    }
+
+    private static void post(RxBus bus, IntChannel ticks, EventPool<Quote> quotes, Mode mode, int count) {
+        for (int i = 0; i < count; i++) {
+            switch (mode) {
+                case CHANNEL:
+                    ticks.post(i);
+                    break;
+                case POOLED:
+                    Quote quote = quotes.acquire();
+                    quote.price = i;
+                    bus.post(quote);
+                    break;
+                default:
+                    bus.post(EVENTS[i & 1]);
+                    break;
+            }
+        }
+    }
+}
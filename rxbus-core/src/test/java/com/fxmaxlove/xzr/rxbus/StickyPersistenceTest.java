@@ -0,0 +1,134 @@
+package com.fxmaxlove.xzr.rxbus;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 粘滞事件写入文件，关闭之后重新打开恢复
+ */
+public class StickyPersistenceTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    static final class Login {
+        final String user;
+
+        Login(String user) {
+            this.user = user;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Login && ((Login) o).user.equals(user);
+        }
+
+        @Override
+        public int hashCode() {
+            return user.hashCode();
+        }
+    }
+
+    static final class LoginCodec implements EventCodec<Login> {
+        @Override
+        public void encode(Login event, ByteBuffer buffer) {
+            byte[] bytes = event.user.getBytes();
+            buffer.putInt(bytes.length).put(bytes);
+        }
+
+        @Override
+        public Login decode(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            return new Login(new String(bytes));
+        }
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        File directory = folder.getRoot();
+        StickyPersistence persistence = persistence(directory);
+        RxBus bus = bus(persistence);
+        bus.postSticky(new Login("a"));
+        bus.postSticky(new Login("b"));
+        bus.postSticky(new Login("c"));
+        bus.removeSticky(new Login("b"));
+        persistence.close();
+
+        StickyPersistence reopened = persistence(directory);
+        List<Login> restored = bus(reopened).getSticky(Login.class);
+        reopened.close();
+        assertEquals(2, restored.size());
+        assertEquals(new Login("a"), restored.get(0));
+        assertEquals(new Login("c"), restored.get(1));
+    }
+
+    @Test
+    public void roundTripAfterCompaction() throws IOException {
+        File directory = folder.getRoot();
+        StickyPersistence persistence = new StickyPersistence.Builder(directory)
+                .codec(Login.class, new LoginCodec())
+                .compactThreshold(64)
+                .build();
+        RxBus bus = new RxBus.Builder()
+                .persistSticky(persistence)
+                .stickyPolicy(Login.class, StickyPolicy.lastN(2))
+                .build();
+        for (int i = 0; i < 100; i++) {
+            bus.postSticky(new Login("user" + i));
+        }
+        persistence.close();
+
+        StickyPersistence reopened = persistence(directory);
+        List<Login> restored = new RxBus.Builder()
+                .persistSticky(reopened)
+                .stickyPolicy(Login.class, StickyPolicy.lastN(2))
+                .build()
+                .getSticky(Login.class);
+        reopened.close();
+        assertEquals(2, restored.size());
+        assertEquals(new Login("user98"), restored.get(0));
+        assertEquals(new Login("user99"), restored.get(1));
+    }
+
+    @Test
+    public void operationsAfterCloseAreNotSaved() throws IOException {
+        File directory = folder.getRoot();
+        StickyPersistence persistence = persistence(directory);
+        RxBus bus = bus(persistence);
+        bus.postSticky(new Login("a"));
+        persistence.close();
+        persistence.close();
+
+        bus.postSticky(new Login("b"));
+        bus.removeSticky(new Login("a"));
+        persistence.flush();
+        assertEquals(1, bus.getSticky(Login.class).size());
+        assertEquals(new Login("b"), bus.getSticky(Login.class).get(0));
+        bus.clearSticky();
+        assertNull(bus.getSticky(Login.class));
+
+        StickyPersistence reopened = persistence(directory);
+        List<Login> restored = bus(reopened).getSticky(Login.class);
+        reopened.close();
+        assertEquals(1, restored.size());
+        assertEquals(new Login("a"), restored.get(0));
+    }
+
+    private static StickyPersistence persistence(File directory) {
+        return new StickyPersistence.Builder(directory).codec(Login.class, new LoginCodec()).build();
+    }
+
+    private static RxBus bus(StickyPersistence persistence) {
+        return new RxBus.Builder().persistSticky(persistence).build();
+    }
+}
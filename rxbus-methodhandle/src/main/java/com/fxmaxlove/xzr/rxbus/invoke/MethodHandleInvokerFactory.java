@@ -0,0 +1,105 @@
+package com.fxmaxlove.xzr.rxbus.invoke;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 通过 {@link MethodHandle#invokeExact(Object...)} 调用，没有访问检查和参数数组，只用于 JVM 7+
+ * <p>在 rxbus-methodhandle 模块中：minSdkVersion 低于 26 时 D8 不接受 invokeExact，
+ * 所以 Android 依赖的 rxbus-core 中没有它。classpath 中有这个类时 {@link Invokers} 自动使用</p>
+ */
+public final class MethodHandleInvokerFactory implements InvokerFactory, PrimitiveInvokerFactory {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    @Override
+    public SubscriberInvoker create(Method method) {
+        try {
+            MethodHandle handle = unreflect(method).asType(INVOKER_TYPE);
+            return new MethodHandleInvoker(handle);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 参数为 int、long、double 的方法，调用时不装箱
+     * @return 无法访问时返回 null
+     */
+    @Override
+    public PrimitiveInvoker createPrimitive(Method method) {
+        try {
+            MethodType type = MethodType.methodType(void.class, Object.class, method.getParameterTypes()[0]);
+            return new MethodHandlePrimitiveInvoker(unreflect(method).asType(type));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * static 方法忽略第一个参数（订阅者），与 {@link Method#invoke(Object, Object...)} 相同
+     */
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle;
+    }
+
+    private static final class MethodHandleInvoker implements SubscriberInvoker {
+        private final MethodHandle handle;
+
+        MethodHandleInvoker(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void invoke(Object subscriber, Object event) throws InvocationTargetException {
+            try {
+                handle.invokeExact(subscriber, event);
+            } catch (Throwable throwable) {
+                throw new InvocationTargetException(throwable);
+            }
+        }
+    }
+
+    private static final class MethodHandlePrimitiveInvoker implements PrimitiveInvoker {
+        private final MethodHandle handle;
+
+        MethodHandlePrimitiveInvoker(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void invokeInt(Object subscriber, int value) throws InvocationTargetException {
+            try {
+                handle.invokeExact(subscriber, value);
+            } catch (Throwable throwable) {
+                throw new InvocationTargetException(throwable);
+            }
+        }
+
+        @Override
+        public void invokeLong(Object subscriber, long value) throws InvocationTargetException {
+            try {
+                handle.invokeExact(subscriber, value);
+            } catch (Throwable throwable) {
+                throw new InvocationTargetException(throwable);
+            }
+        }
+
+        @Override
+        public void invokeDouble(Object subscriber, double value) throws InvocationTargetException {
+            try {
+                handle.invokeExact(subscriber, value);
+            } catch (Throwable throwable) {
+                throw new InvocationTargetException(throwable);
+            }
+        }
+    }
+}
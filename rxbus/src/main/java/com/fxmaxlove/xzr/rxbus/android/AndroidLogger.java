@@ -0,0 +1,42 @@
+package com.fxmaxlove.xzr.rxbus.android;
+
+import android.util.Log;
+
+import com.fxmaxlove.xzr.rxbus.util.Logger;
+
+import io.reactivex.annotations.Nullable;
+
+/**
+ * 输出到 {@link Log}
+ */
+public class AndroidLogger implements Logger {
+
+    private final int minLevel;
+
+    /**
+     * 输出所有级别
+     */
+    public AndroidLogger() {
+        this(Log.DEBUG);
+    }
+
+    /**
+     * @param minLevel 最低输出级别，例如 {@link Log#ERROR}
+     */
+    public AndroidLogger(int minLevel) {
+        this.minLevel = minLevel;
+    }
+
+    @Override
+    public boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    @Override
+    public void log(int level, String tag, String message, @Nullable Throwable throwable) {
+        if (throwable != null) {
+            message = message + '\n' + Log.getStackTraceString(throwable);
+        }
+        Log.println(level, tag, message);
+    }
+}
@@ -0,0 +1,46 @@
+package com.fxmaxlove.xzr.rxbus.android;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.fxmaxlove.xzr.rxbus.util.FrameScheduler;
+
+/**
+ * 每次请求在下一帧的 {@link Choreographer} 回调中执行，API 16 以下退化为主线程 {@link Handler}
+ */
+public final class ChoreographerFrameSource implements FrameScheduler.FrameSource {
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void requestFrame(final Runnable drain) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            mainHandler.post(drain);
+            return;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            postFrameCallback(drain);
+            return;
+        }
+        // Choreographer 属于主线程，其它线程的请求先切到主线程
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                postFrameCallback(drain);
+            }
+        });
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static void postFrameCallback(final Runnable drain) {
+        Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                drain.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.fxmaxlove.xzr.rxbus.android;
+
+import android.util.Log;
+
+import com.fxmaxlove.xzr.rxbus.BaseBus;
+import com.fxmaxlove.xzr.rxbus.util.FrameScheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.android.schedulers.AndroidSchedulers;
+
+/**
+ * Android 环境的初始化：{@code EventThread.MAIN} 使用 {@link AndroidSchedulers#mainThread()}，日志输出到 {@link Log}
+ * <p>在 {@code Application.onCreate()} 中调用一次</p>
+ */
+public final class RxBusAndroid {
+
+    private RxBusAndroid() {
+    }
+
+    /**
+     * 输出所有日志
+     */
+    public static void init() {
+        init(Log.DEBUG);
+    }
+
+    /**
+     * @param minLogLevel 最低日志级别，release 包可以传 {@link Log#ERROR}，关闭的级别不会拼接日志
+     */
+    public static void init(int minLogLevel) {
+        BaseBus.setMainScheduler(AndroidSchedulers.mainThread());
+        BaseBus.setLogger(new AndroidLogger(minLogLevel));
+    }
+
+    /**
+     * {@code EventThread.MAIN} 的事件按帧批量送达：所有主线程订阅者待处理的事件在每一帧中统一处理一次，
+     * 大量事件不会在主线程消息队列中堆积，在 {@link #init()} 之后调用
+     * @param budget 每一帧处理事件的时间上限，超出的事件留到下一帧，例如 8ms
+     * @see FrameScheduler
+     */
+    public static FrameScheduler useFrameAlignedMain(long budget, TimeUnit unit) {
+        FrameScheduler scheduler = FrameScheduler.create(new ChoreographerFrameSource(), budget, unit);
+        BaseBus.setMainScheduler(scheduler);
+        return scheduler;
+    }
+}